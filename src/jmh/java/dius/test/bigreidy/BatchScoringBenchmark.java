@@ -0,0 +1,97 @@
+package dius.test.bigreidy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per game of scoring a batch of completed games, roll by roll against laid out in scorecard boxes.
+ * Roll by roll is measured from int and byte rolls, through the fork-join path, and with int and byte rolls
+ * scored in the same fork, as a service rescoring both kinds of archive would.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchScoringBenchmark {
+
+    @Param
+    private GameShape shape;
+
+    private int[] rolls;
+    private byte[] byteRolls;
+    private int[] gameOffsets;
+    private byte[] boxes;
+    private int[] scores;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        int[][] games = shape.games();
+        gameOffsets = new int[games.length];
+        int count = 0;
+        for (int g = 0; g < games.length; g++) {
+            gameOffsets[g] = count;
+            count += games[g].length;
+        }
+        rolls = new int[count];
+        for (int g = 0; g < games.length; g++) {
+            System.arraycopy(games[g], 0, rolls, gameOffsets[g], games[g].length);
+        }
+        byteRolls = new byte[count];
+        for (int i = 0; i < count; i++) {
+            byteRolls[i] = (byte) rolls[i];
+        }
+        boxes = new byte[FrameAlignedScorer.boxCount * games.length];
+        FrameAlignedScorer.layout(rolls, gameOffsets, boxes);
+        scores = new int[games.length];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GameShape.gamesPerShape)
+    public int[] rollByRoll() {
+        BowlingScorer.scoreAll(rolls, gameOffsets, scores);
+        return scores;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GameShape.gamesPerShape)
+    public int[] rollByRollBytes() {
+        BowlingScorer.scoreAll(byteRolls, gameOffsets, scores);
+        return scores;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * GameShape.gamesPerShape)
+    public int[] rollByRollMixed() {
+        BowlingScorer.scoreAll(rolls, gameOffsets, scores);
+        BowlingScorer.scoreAll(byteRolls, gameOffsets, scores);
+        return scores;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GameShape.gamesPerShape)
+    public ScoreSummary rollByRollParallel() {
+        return BowlingScorer.scoreAllParallel(rolls, gameOffsets);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GameShape.gamesPerShape)
+    public int[] frameAligned() {
+        FrameAlignedScorer.scoreAll(boxes, GameShape.gamesPerShape, scores);
+        return scores;
+    }
+}
@@ -0,0 +1,87 @@
+package dius.test.bigreidy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of playing a whole game through {@link BowlingGame}, per game shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BowlingGameBenchmark {
+
+    @Param
+    private GameShape shape;
+
+    private int[][] games;
+    private BowlingGame[] completedGames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        games = shape.games();
+        completedGames = new BowlingGame[games.length];
+        for (int i = 0; i < games.length; i++) {
+            completedGames[i] = new BowlingGame();
+            for (int pins : games[i]) {
+                completedGames[i].roll(pins);
+            }
+        }
+    }
+
+    private int nextGame() {
+        next = (next + 1) & (GameShape.gamesPerShape - 1);
+        return next;
+    }
+
+    /**
+     * a new game, with every roll of it
+     */
+    @Benchmark
+    public BowlingGame roll() {
+        BowlingGame bowlingGame = new BowlingGame();
+        for (int pins : games[nextGame()]) {
+            bowlingGame.roll(pins);
+        }
+        return bowlingGame;
+    }
+
+    /**
+     * what a lane display does, the score after every roll
+     */
+    @Benchmark
+    public void rollAndScore(Blackhole blackhole) {
+        BowlingGame bowlingGame = new BowlingGame();
+        for (int pins : games[nextGame()]) {
+            bowlingGame.roll(pins);
+            blackhole.consume(bowlingGame.score());
+        }
+    }
+
+    @Benchmark
+    public int score() {
+        return completedGames[nextGame()].score();
+    }
+
+    @Benchmark
+    public String getPrintFriendlyText() {
+        return completedGames[nextGame()].getPrintFriendlyText();
+    }
+}
@@ -0,0 +1,98 @@
+package dius.test.bigreidy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the per-frame operations, over the frames of each game shape.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrameBenchmark {
+
+    @Param
+    private GameShape shape;
+
+    /**
+     * the rolls of every frame of every game, and whether it was the last frame
+     */
+    private int[][] frameRolls;
+    private boolean[] lastFrames;
+    private Frame[] bowledFrames;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<int[]> rolls = new ArrayList<>();
+        List<Boolean> last = new ArrayList<>();
+        for (int[] game : shape.games()) {
+            int offset = 0;
+            for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+                boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+                Frame played = new Frame(lastFrame);
+                int start = offset;
+                while (played.canBowlAgain()) {
+                    played.bowl(game[offset++]);
+                }
+                int[] bowls = new int[offset - start];
+                System.arraycopy(game, start, bowls, 0, bowls.length);
+                rolls.add(bowls);
+                last.add(lastFrame);
+            }
+        }
+        frameRolls = rolls.toArray(new int[0][]);
+        lastFrames = new boolean[last.size()];
+        bowledFrames = new Frame[last.size()];
+        for (int i = 0; i < lastFrames.length; i++) {
+            lastFrames[i] = last.get(i);
+            bowledFrames[i] = bowl(i);
+        }
+    }
+
+    private int nextFrame() {
+        next++;
+        if (next == frameRolls.length) next = 0;
+        return next;
+    }
+
+    private Frame bowl(int index) {
+        Frame frame = new Frame(lastFrames[index]);
+        for (int pins : frameRolls[index]) {
+            frame.bowl(pins);
+        }
+        return frame;
+    }
+
+    @Benchmark
+    public Frame bowl() {
+        return bowl(nextFrame());
+    }
+
+    @Benchmark
+    public List<Integer> getScores() {
+        return bowledFrames[nextFrame()].getScores();
+    }
+
+    @Benchmark
+    public String getPrintFriendlyText() {
+        return bowledFrames[nextFrame()].getPrintFriendlyText();
+    }
+}
@@ -0,0 +1,69 @@
+package dius.test.bigreidy;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Representative completed games for the benchmarks, as the pins knocked down on each roll.
+ */
+public enum GameShape {
+    GUTTERS {
+        @Override
+        int[] game(Random random) {
+            return new int[2 * BowlingGame.maxFrames];
+        }
+    },
+    STRIKES {
+        @Override
+        int[] game(Random random) {
+            int[] rolls = new int[BowlingGame.maxFrames + 2];
+            Arrays.fill(rolls, Frame.maxPins);
+            return rolls;
+        }
+    },
+    ALTERNATING_SPARES {
+        @Override
+        int[] game(Random random) {
+            int[] rolls = new int[BowlingGame.maxRolls];
+            for (int i = 0; i < rolls.length; i += 2) {
+                rolls[i] = (i / 2) % 2 == 0 ? 9 : 1;
+                if (i + 1 < rolls.length) rolls[i + 1] = Frame.maxPins - rolls[i];
+            }
+            return rolls;
+        }
+    },
+    RANDOM {
+        @Override
+        int[] game(Random random) {
+            int[] rolls = new int[BowlingGame.maxRolls];
+            int count = 0;
+            for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+                boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+                int packed = 0;
+                int bowls = 0;
+                while (Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                    int pins = random.nextInt(Frame.pinsStanding(lastFrame, packed, bowls) + 1);
+                    packed = Frame.withRoll(packed, bowls++, pins);
+                    rolls[count++] = pins;
+                }
+            }
+            return Arrays.copyOf(rolls, count);
+        }
+    };
+
+    /**
+     * enough different random games that the branch predictor can't learn them
+     */
+    static final int gamesPerShape = 1024;
+
+    abstract int[] game(Random random);
+
+    int[][] games() {
+        Random random = new Random(42);
+        int[][] games = new int[gamesPerShape][];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = game(random);
+        }
+        return games;
+    }
+}
@@ -1,119 +1,438 @@
 package dius.test.bigreidy;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
-
-public class BowlingGame {
+/**
+ * A single player's game of bowling.
+ * The whole match is kept in one preallocated flat structure: a slot for every possible roll,
+ * plus the offset each frame starts at. The current frame is validated with the same rules as
+ * {@link Frame}, using its packed form, so no objects are created as the game goes on.
+ */
+public class BowlingGame implements Game {
 
     protected static final int maxFrames = 10;
-    private final Map<Integer, Frame> frameMap;
+    /**
+     * 2 bowls for each standard frame, and 3 in the last
+     */
+    protected static final int maxRolls = 2 * (maxFrames - 1) + 3;
+    /**
+     * a perfect game
+     */
+    protected static final int maxScore = 300;
+    private static final int bonusBits = 2;
+    private static final int bonusMask = (1 << bonusBits) - 1;
+
+    private final byte[] rolls = new byte[maxRolls];
+    /**
+     * index into rolls that each frame starts at, the entry after the current frame is where the next one will start
+     */
+    private final byte[] frameOffsets = new byte[maxFrames + 1];
+    private int rollCount = 0;
     private int frameIdx = 0;
+    /**
+     * rolls of the current frame, packed the same way {@link Frame} stores them
+     */
+    private int packedCurrentFrame = 0;
 
     private boolean matchEnded = false;
 
-    public BowlingGame() {
-        frameMap = new HashMap<>();
-        frameMap.put(frameIdx, new Frame(false));
-    }
+    /**
+     * Strikes and spares still waiting on bonus rolls, see {@link #openBonus(int, int, int)}
+     */
+    private int openBonuses = 0;
+    private int runningScore = 0;
+    /**
+     * score through the end of each frame, as far as the rolls so far go. Frames not started yet are 0
+     */
+    private final int[] cumulativeScores = new int[maxFrames];
 
     /**
      * returns whether the match has ended
      *
      * @return has the matched ended
      */
+    @Override
     public boolean isMatchEnded() {
         return matchEnded;
     }
 
+    /**
+     * index of the frame the next bowl will be in, or {@link #maxFrames} once the match has ended
+     *
+     * @return current frame index, starting at 0
+     */
+    @Override
+    public int getFrameIndex() {
+        return frameIdx;
+    }
+
     /**
      * records the bowl, and will roll the frame over if needed
      *
      * @param noOfPins knocked down in this bowl
      * @throws IllegalStateException incorrect state of game
      */
+    @Override
     public void roll(int noOfPins) throws IllegalStateException {
-        if (matchEnded) {
-            throw new IllegalStateException("Match has ended");
-        }
-        Frame currentFrame = frameMap.get(frameIdx);
-        currentFrame.bowl(noOfPins);
+        tryRoll(noOfPins).throwIfRejected();
+    }
+
+    /**
+     * records the bowl if it is allowed, and will roll the frame over if needed.
+     * Never throws, so bad input costs no more than good input.
+     *
+     * @param noOfPins knocked down in this bowl
+     * @return {@link RollStatus#ACCEPTED}, or why the bowl was not recorded, the game is left as it was
+     */
+    @Override
+    public RollStatus tryRoll(int noOfPins) {
+        if (matchEnded) return RollStatus.MATCH_ENDED;
+        boolean lastFrame = isLastFrame();
+        int frameRollCount = rollCount - frameOffsets[frameIdx];
+        RollStatus status = Frame.checkBowl(lastFrame, packedCurrentFrame, frameRollCount, noOfPins);
+        if (status != RollStatus.ACCEPTED) return status;
+        packedCurrentFrame = Frame.withRoll(packedCurrentFrame, frameRollCount, noOfPins);
+        rolls[rollCount++] = (byte) noOfPins;
+        frameRollCount++;
+        addToScore(lastFrame, frameRollCount, noOfPins);
 
-        if (!currentFrame.canBowlAgain()) {
+        if (!Frame.canBowlAgain(lastFrame, packedCurrentFrame, frameRollCount)) {
             setupNextFrame();
         }
+        return status;
     }
 
     /**
-     * Will setup the next frame in the game
+     * Takes back the last bowl, e.g. when a lane operator spots a mis-scored roll
      *
-     * @throws IllegalStateException incorrect state of game
+     * @throws IllegalStateException there are no bowls to take back
+     */
+    public void undo() throws IllegalStateException {
+        if (rollCount == 0) {
+            throw new IllegalStateException("No rolls to undo");
+        }
+        replay(frameOfRoll(rollCount - 1), rollCount - 1);
+    }
+
+    /**
+     * Changes the pins knocked down on an earlier bowl, e.g. a sensor that read 9 instead of 10.
+     * Every bowl after it is checked again with the same rules as {@link #roll(int)}, as the change can move
+     * frame boundaries (a strike now ends its frame a bowl early). If any of them is no longer allowed
+     * the game is left as it was.
+     *
+     * @param rollIndex bowl within the game, starting at 0
+     * @param noOfPins  knocked down in that bowl
+     * @throws IndexOutOfBoundsException that bowl has not happened yet
+     * @throws IllegalStateException     a later bowl could no longer have happened
+     * @throws IllegalArgumentException  the number of pins is not possible
+     */
+    public void correctRoll(int rollIndex, int noOfPins)
+            throws IndexOutOfBoundsException, IllegalStateException, IllegalArgumentException {
+        if (rollIndex < 0 || rollIndex >= rollCount) {
+            throw new IndexOutOfBoundsException("No roll " + rollIndex + " in this game");
+        }
+        if (noOfPins < 0) throw RollStatus.NEGATIVE_PINS.toException();
+        if (noOfPins > Frame.maxPins) throw RollStatus.TOO_MANY_PINS.toException();
+        int frame = frameOfRoll(rollIndex);
+        int end = rollCount;
+        byte previous = rolls[rollIndex];
+        rolls[rollIndex] = (byte) noOfPins;
+        RollStatus status = replay(frame, end);
+        if (status != RollStatus.ACCEPTED) {
+            // the bowls as they were all went in once already, so putting them back can't fail
+            rolls[rollIndex] = previous;
+            replay(frame, end);
+            throw status.toException();
+        }
+    }
+
+    /**
+     * Plays the stored bowls again from two frames before the changed one, as no earlier frame's bonus
+     * can reach a later bowl. Those earlier frames' totals are final, so the replay starts from the running
+     * total before them with no bonuses open.
+     *
+     * @param changedFrame first frame whose bowls have changed
+     * @param end          index after the last bowl to keep
+     * @return {@link RollStatus#ACCEPTED}, or why a bowl was refused, the game then stops just before it
+     */
+    private RollStatus replay(int changedFrame, int end) {
+        int start = Math.max(0, changedFrame - 2);
+        int from = frameOffsets[start];
+        frameIdx = start;
+        rollCount = from;
+        packedCurrentFrame = 0;
+        openBonuses = 0;
+        matchEnded = false;
+        runningScore = start == 0 ? 0 : cumulativeScores[start - 1];
+        for (int f = start; f < maxFrames; f++) {
+            cumulativeScores[f] = 0;
+        }
+        cumulativeScores[start] = runningScore;
+        for (int i = from; i < end; i++) {
+            RollStatus status = tryRoll(rolls[i]);
+            if (status != RollStatus.ACCEPTED) return status;
+        }
+        return RollStatus.ACCEPTED;
+    }
+
+    private int frameOfRoll(int rollIndex) {
+        int frame = Math.min(frameIdx, maxFrames - 1);
+        while (frameOffsets[frame] > rollIndex) {
+            frame--;
+        }
+        return frame;
+    }
+
+    /**
+     * Will setup the next frame in the game
      */
     private void setupNextFrame() {
         frameIdx++;
+        frameOffsets[frameIdx] = (byte) rollCount;
+        packedCurrentFrame = 0;
         if (frameIdx >= maxFrames) {
             matchEnded = true;
-            return;
+        } else {
+            cumulativeScores[frameIdx] = runningScore;
         }
-        Frame newFrame = new Frame(frameIdx == (maxFrames - 1));
-        frameMap.put(frameIdx, newFrame);
+    }
+
+    private boolean isLastFrame() {
+        return frameIdx == maxFrames - 1;
+    }
+
+    /**
+     * @return whether the next bowl is at all ten pins, rather than what an earlier bowl left
+     */
+    boolean isNextBowlAtFullRack() {
+        if (matchEnded) return false;
+        return Frame.isFullRack(isLastFrame(), packedCurrentFrame, rollCount - frameOffsets[frameIdx]);
     }
 
     /**
-     * Calculates the current score.
-     * We could keep a cache for performance if necessary
+     * Returns the current score.
+     * Kept up to date by {@link #roll(int)}, so this is just a read of the running total
      *
      * @return total amount of points scored so far
      */
+    @Override
     public int score() {
-        if (frameMap.size() == 0) return 0;
-        return frameMap.keySet().stream()
-                .map(this::calculateFrameScore)
-                .reduce(Integer::sum).orElse(0);
+        return runningScore;
+    }
+
+    /**
+     * Running total through the end of a frame, as shown under it on a scorecard.
+     * Only final for frames before {@link #getFinishedFrameCount()}, after that it counts the rolls so far.
+     *
+     * @param frameIndex index of the frame, starting at 0
+     * @return total points scored by that frame and every frame before it
+     * @throws IndexOutOfBoundsException there is no such frame
+     */
+    public int getCumulativeScore(int frameIndex) {
+        if (frameIndex < 0 || frameIndex >= maxFrames) {
+            throw new IndexOutOfBoundsException("No frame " + frameIndex);
+        }
+        return cumulativeScores[frameIndex];
+    }
+
+    /**
+     * Copies the running total through the end of every frame, see {@link #getCumulativeScore(int)}
+     *
+     * @param out receives a total per frame, must be at least {@link #maxFrames} long
+     * @return number of frames whose totals are final
+     */
+    public int getCumulativeScores(int[] out) {
+        System.arraycopy(cumulativeScores, 0, out, 0, maxFrames);
+        return getFinishedFrameCount();
+    }
+
+    /**
+     * Frames that are complete and have had all their bonus rolls, so their totals will not change again.
+     * Strikes and spares still waiting on bonuses are always the last frames before the current one.
+     *
+     * @return number of frames, from the start of the game, whose scores are final
+     */
+    public int getFinishedFrameCount() {
+        return frameIdx - openCount(openBonuses);
+    }
+
+    /**
+     * Best final score still possible, if every remaining bowl knocks down every pin left standing.
+     * Worked out on local variables from the current frame and open bonuses, with the same steps as
+     * {@link #roll(int)}, so it never needs a copy of the game. At most 12 bowls are left, so it is constant time.
+     *
+     * @return highest score the game can still end on
+     */
+    public int maxPossibleScore() {
+        int score = runningScore;
+        int frame = frameIdx;
+        int packed = packedCurrentFrame;
+        int bowls = rollCount - frameOffsets[frameIdx];
+        int open = openBonuses;
+        while (frame < maxFrames) {
+            boolean lastFrame = frame == maxFrames - 1;
+            int pins = Frame.pinsStanding(lastFrame, packed, bowls);
+            score += rollValue(open, pins);
+            open = closeBonuses(open);
+            packed = Frame.withRoll(packed, bowls++, pins);
+            if (!Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                if (!lastFrame) open = openBonus(open, packed, bowls);
+                frame++;
+                packed = 0;
+                bowls = 0;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Projected final score, assuming the bowler scores their historical average per frame for the rest of the game.
+     * The pins already knocked down in the current frame count towards that frame's average.
+     * Never below the current score, and never above {@link #maxPossibleScore()}.
+     *
+     * @param averageScore the bowler's historical average final score
+     * @return projected final score
+     */
+    public int projectedScore(double averageScore) {
+        if (matchEnded) return runningScore;
+        int pinsThisFrame = 0;
+        for (int i = frameOffsets[frameIdx]; i < rollCount; i++) {
+            pinsThisFrame += rolls[i];
+        }
+        double remaining = averageScore / maxFrames * (maxFrames - frameIdx) - pinsThisFrame;
+        long projected = Math.round(runningScore + Math.max(0, remaining));
+        return (int) Math.min(projected, maxPossibleScore());
     }
 
     /**
      * Quite an interesting problem to code for.
+     * Rather than re-adding every frame, each roll is added once for itself, and once more for
+     * every strike or spare that is still waiting on bonus rolls.
      * Steps:
-     * 1. Add current frame up
-     * 2. If Spare or strike, add next single roll
-     * 3. If strike, add the roll after that
-     * if not complete yet, exit out with a 0 bonus.
-     * Last Frame doesn't do anything weird
-     *
-     * @param frameIndex index of frame to add up
-     * @return total calculated for frame considering next frames
-     */
-    private int calculateFrameScore(int frameIndex) {
-        Frame frame = frameMap.get(frameIndex);
-        //get self score
-        int frameScore = frame.getScores().stream().reduce(Integer::sum).orElse(0);
-        //return that if not special
-        if (!frame.isSpare() && !frame.isStrike()) return frameScore;
-
-        //add the next point on for either strike or spare
-        if (!frameMap.containsKey(frameIndex + 1)) return frameScore;
-        Frame nextFrame = frameMap.get(frameIndex + 1);
-        if (nextFrame.getScores().size() == 0) return frameScore;
-        frameScore += nextFrame.getScores().get(0);
-
-        //if spare, then only add the one
-        if (frame.isSpare()) {
-            return frameScore;
-        }
-
-        //for strike, we need to check if there's another on nextFrame, or then continue
-        if (nextFrame.getScores().size() > 1) {
-            frameScore += nextFrame.getScores().get(1);
+     * 1. Add the roll to the total, plus once per open bonus, closing any that are now complete
+     * 2. If the frame finished as a strike, open a bonus for the next two rolls
+     * 3. If the frame finished as a spare, open a bonus for the next roll
+     * Last Frame doesn't do anything weird, it never opens a bonus.
+     * Bonuses that are not complete yet just count what has been rolled so far.
+     * The open bonuses always belong to the frames just before this one, so only their cumulative scores
+     * and this frame's need updating.
+     *
+     * @param lastFrame      whether the roll was in the last frame
+     * @param frameRollCount number of bowls in the current frame, including this one
+     * @param noOfPins       knocked down in this bowl
+     */
+    private void addToScore(boolean lastFrame, int frameRollCount, int noOfPins) {
+        int open = openCount(openBonuses);
+        if (open == 2) {
+            cumulativeScores[frameIdx - 2] += noOfPins;
+            cumulativeScores[frameIdx - 1] += 2 * noOfPins;
+        } else if (open == 1) {
+            cumulativeScores[frameIdx - 1] += noOfPins;
+        }
+        runningScore += rollValue(openBonuses, noOfPins);
+        cumulativeScores[frameIdx] = runningScore;
+        openBonuses = closeBonuses(openBonuses);
+        if (!lastFrame) {
+            openBonuses = openBonus(openBonuses, packedCurrentFrame, frameRollCount);
+        }
+    }
+
+    /**
+     * What a roll adds to the score: once for itself, and once for every open bonus
+     *
+     * @param openBonuses bonuses open before the roll
+     * @param noOfPins    knocked down in this bowl
+     * @return points to add to the score
+     */
+    static int rollValue(int openBonuses, int noOfPins) {
+        return noOfPins * (1 + openCount(openBonuses));
+    }
+
+    /**
+     * @param openBonuses bonuses open, as packed by {@link #openBonus(int, int, int)}
+     * @return how many there are, 0 to 2
+     */
+    static int openCount(int openBonuses) {
+        return (openBonuses & bonusMask) == 0 ? 0 : (openBonuses >>> bonusBits) == 0 ? 1 : 2;
+    }
+
+    /**
+     * Counts a roll against every open bonus, closing the ones that now have all their rolls
+     *
+     * @param openBonuses bonuses open before the roll
+     * @return bonuses still open after the roll
+     */
+    static int closeBonuses(int openBonuses) {
+        int oldest = openBonuses & bonusMask;
+        int newest = openBonuses >>> bonusBits;
+        if (oldest > 1) return (oldest - 1) | (newest > 1 ? (newest - 1) << bonusBits : 0);
+        return newest > 1 ? newest - 1 : 0;
+    }
+
+    /**
+     * Opens a bonus if a standard frame has just finished as a strike (next two rolls) or a spare (next roll).
+     * There can only ever be two open at once (a strike followed by another strike), so they are
+     * packed into an int as the rolls each still needs, oldest first.
+     *
+     * @param openBonuses    bonuses open after the roll
+     * @param packedFrame    rolls of the frame, packed the same way {@link Frame} stores them
+     * @param frameRollCount number of bowls in the frame
+     * @return bonuses open going into the next roll
+     */
+    static int openBonus(int openBonuses, int packedFrame, int frameRollCount) {
+        if (Frame.canBowlAgain(false, packedFrame, frameRollCount)) return openBonuses;
+        int rolls;
+        if (Frame.isStrike(packedFrame, frameRollCount)) {
+            rolls = 2;
+        } else if (Frame.isSpare(packedFrame, frameRollCount)) {
+            rolls = 1;
         } else {
-            if (!frameMap.containsKey(frameIndex + 2)) return frameScore;
-            Frame frameAfter = frameMap.get(frameIndex + 2);
-            if (frameAfter.getScores().size() == 0) return frameScore;
-            frameScore += frameAfter.getScores().get(0);
+            return openBonuses;
+        }
+        return withBonus(openBonuses, rolls);
+    }
+
+    /**
+     * @param openBonuses bonuses already open, at most one
+     * @param rolls       bonus rolls the new one is waiting on
+     * @return bonuses open with the new one added after the others
+     */
+    static int withBonus(int openBonuses, int rolls) {
+        return openBonuses == 0 ? rolls : openBonuses | (rolls << bonusBits);
+    }
+
+    /**
+     * @return number of bowls taken so far this game
+     */
+    int getRollCount() {
+        return rollCount;
+    }
+
+    /**
+     * @param rollIndex bowl within the game, starting at 0
+     * @return pins knocked down on that bowl
+     */
+    int getRoll(int rollIndex) {
+        return rolls[rollIndex];
+    }
+
+    /**
+     * Packs the rolls of a frame the same way {@link Frame} stores them
+     *
+     * @param frameIndex index of frame to read
+     * @return packed rolls of that frame
+     */
+    private int packedFrameRolls(int frameIndex) {
+        if (frameIndex == frameIdx) return packedCurrentFrame;
+        int packed = 0;
+        for (int i = frameOffsets[frameIndex]; i < frameOffsets[frameIndex + 1]; i++) {
+            packed = Frame.withRoll(packed, i - frameOffsets[frameIndex], rolls[i]);
         }
-        return frameScore;
+        return packed;
     }
 
+    private int frameRollCount(int frameIndex) {
+        int end = frameIndex == frameIdx ? rollCount : frameOffsets[frameIndex + 1];
+        return end - frameOffsets[frameIndex];
+    }
 
     /**
      * Visual printer of the Frame.
@@ -122,11 +441,15 @@ public class BowlingGame {
      * @return formatted output of the frame
      */
     protected String getPrintFriendlyText() {
-        String values = frameMap.values().stream()
-                .map(Frame::getPrintFriendlyText)
-                .map(f -> "[" + f + "]")
-                .collect(Collectors.joining("\n"));
-        if (isMatchEnded()) values = values + "\n Match Ended with score " + score();
-        return values;
+        StringBuilder values = new StringBuilder();
+        int lastShown = Math.min(frameIdx, maxFrames - 1);
+        for (int f = 0; f <= lastShown; f++) {
+            if (f > 0) values.append('\n');
+            values.append('[');
+            Frame.appendPrintFriendlyText(values, f == maxFrames - 1, packedFrameRolls(f), frameRollCount(f));
+            values.append(']');
+        }
+        if (isMatchEnded()) values.append("\n Match Ended with score ").append(score());
+        return values.toString();
     }
 }
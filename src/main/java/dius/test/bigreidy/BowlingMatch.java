@@ -0,0 +1,190 @@
+package dius.test.bigreidy;
+
+/**
+ * A match of several bowlers, each bowling a series of games, taking turns a frame at a time.
+ * Rather than a {@link BowlingGame} per bowler, every bowler's state is a column entry in a few shared
+ * primitive arrays, and rolls are scored with the {@link StateMachineGame} table, so a roll is a handful of
+ * array reads and writes and the leaderboard can be refreshed after every one.
+ */
+public class BowlingMatch {
+
+    private final int bowlers;
+    private final int gamesPerSeries;
+
+    /**
+     * transition table state of each bowler's current game
+     */
+    private final int[] gameStates;
+    private final int[] gameScores;
+    /**
+     * total of each bowler's finished games in the series
+     */
+    private final int[] seriesScores;
+
+    private int currentBowler = 0;
+    private int currentGame = 0;
+    private boolean matchEnded = false;
+
+    /**
+     * @param bowlers        number of bowlers, who bowl in order of their index
+     * @param gamesPerSeries games each bowler bowls
+     */
+    public BowlingMatch(int bowlers, int gamesPerSeries) {
+        if (bowlers < 1 || gamesPerSeries < 1) {
+            throw new IllegalArgumentException("A match needs at least one bowler and one game");
+        }
+        this.bowlers = bowlers;
+        this.gamesPerSeries = gamesPerSeries;
+        gameStates = new int[bowlers];
+        gameScores = new int[bowlers];
+        seriesScores = new int[bowlers];
+        startGame();
+    }
+
+    private void startGame() {
+        for (int b = 0; b < bowlers; b++) {
+            seriesScores[b] += gameScores[b];
+            gameStates[b] = StateMachineGame.initialState;
+            gameScores[b] = 0;
+        }
+    }
+
+    /**
+     * returns whether every bowler has finished every game
+     *
+     * @return has the matched ended
+     */
+    public boolean isMatchEnded() {
+        return matchEnded;
+    }
+
+    /**
+     * records a bowl for the bowler whose turn it is, moving on to the next bowler once their frame is done
+     *
+     * @param noOfPins knocked down in this bowl
+     * @throws IllegalStateException    the match has ended
+     * @throws IllegalArgumentException the number of pins is not possible
+     */
+    public void roll(int noOfPins) throws IllegalStateException, IllegalArgumentException {
+        if (matchEnded) {
+            throw new IllegalStateException("Match has ended");
+        }
+        int state = gameStates[currentBowler];
+        int transition = StateMachineGame.checkedTransition(state, noOfPins);
+        int nextState = StateMachineGame.nextState(transition);
+        gameStates[currentBowler] = nextState;
+        gameScores[currentBowler] += StateMachineGame.scoreDelta(transition);
+
+        if (StateMachineGame.frameOf(nextState) != StateMachineGame.frameOf(state)) {
+            nextTurn();
+        }
+    }
+
+    private void nextTurn() {
+        currentBowler++;
+        if (currentBowler < bowlers) return;
+        currentBowler = 0;
+        if (!StateMachineGame.isMatchEnded(gameStates[0])) return;
+        currentGame++;
+        if (currentGame < gamesPerSeries) {
+            startGame();
+        } else {
+            matchEnded = true;
+        }
+    }
+
+    /**
+     * @return index of the bowler whose turn it is
+     */
+    public int getCurrentBowler() {
+        return currentBowler;
+    }
+
+    /**
+     * @return index of the game in the series being bowled, starting at 0
+     */
+    public int getCurrentGame() {
+        return currentGame;
+    }
+
+    /**
+     * @param bowler index of the bowler
+     * @return score of the bowler's current game, or their last game once the match has ended
+     */
+    public int score(int bowler) {
+        return gameScores[bowler];
+    }
+
+    /**
+     * @param bowler index of the bowler
+     * @return total of the bowler's series so far, including the game in progress
+     */
+    public int seriesScore(int bowler) {
+        return seriesScores[bowler] + gameScores[bowler];
+    }
+
+    /**
+     * The bowlers with the highest series scores, best first, ties going to the lower index.
+     * Keeps a small heap of the best k seen so far, so it is O(bowlers log k) and doesn't allocate.
+     *
+     * @param k   how many bowlers to find
+     * @param out where to write their indexes, needs room for k
+     * @return how many were written, which is fewer than k if there are fewer bowlers
+     */
+    public int topBowlers(int k, int[] out) {
+        int size = 0;
+        int wanted = Math.min(k, bowlers);
+        for (int b = 0; b < bowlers; b++) {
+            if (size < wanted) {
+                out[size] = b;
+                siftUp(out, size++);
+            } else if (wanted > 0 && ranksAbove(b, out[0])) {
+                out[0] = b;
+                siftDown(out, 0, size);
+            }
+        }
+        // heap sort the min-heap in place, leaving the best first
+        for (int end = size - 1; end > 0; end--) {
+            int worst = out[0];
+            out[0] = out[end];
+            out[end] = worst;
+            siftDown(out, 0, end);
+        }
+        return size;
+    }
+
+    private boolean ranksAbove(int bowler, int other) {
+        int score = seriesScore(bowler);
+        int otherScore = seriesScore(other);
+        return score > otherScore || (score == otherScore && bowler < other);
+    }
+
+    /**
+     * min-heap on rank, so the worst of the best k is at the top ready to be replaced
+     */
+    private void siftUp(int[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!ranksAbove(heap[parent], heap[index])) return;
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int index, int size) {
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) return;
+            if (child + 1 < size && ranksAbove(heap[child], heap[child + 1])) child++;
+            if (!ranksAbove(heap[index], heap[child])) return;
+            swap(heap, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int swapped = heap[a];
+        heap[a] = heap[b];
+        heap[b] = swapped;
+    }
+}
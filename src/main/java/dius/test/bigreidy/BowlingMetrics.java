@@ -0,0 +1,312 @@
+package dius.test.bigreidy;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Latency histograms for rolls and score reads, rejected rolls by reason, and the number of live games.
+ * Everything is lock-free, so recording never makes a lane wait on another.
+ * <p>
+ * Metrics are optional: a {@link GameRegistry} without one never reads the clock and never touches a counter.
+ * They can be read over JMX with {@link #register(String)}, or pushed to any other registry with {@link #report(ObjLongConsumer)}.
+ */
+public class BowlingMetrics implements BowlingMetricsMXBean {
+
+    private static final RollStatus[] statuses = RollStatus.values();
+
+    private final Histogram rolls = new Histogram();
+    private final Histogram scores = new Histogram();
+    /**
+     * rejected rolls, indexed by {@link RollStatus#ordinal()}
+     */
+    private final LongAdder[] rejections = new LongAdder[statuses.length];
+    private final LongAdder unknownGames = new LongAdder();
+    private final LongAdder liveGames = new LongAdder();
+
+    public BowlingMetrics() {
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return histogram of how long each accepted roll took
+     */
+    public Histogram rolls() {
+        return rolls;
+    }
+
+    /**
+     * @return histogram of how long each score read took
+     */
+    public Histogram scores() {
+        return scores;
+    }
+
+    void rollTook(long startNanos) {
+        rolls.record(System.nanoTime() - startNanos);
+    }
+
+    void scoreTook(long startNanos) {
+        scores.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @param status why a roll was rejected
+     */
+    void rejected(RollStatus status) {
+        rejections[status.ordinal()].increment();
+    }
+
+    /**
+     * @param status a reason rolls are rejected
+     * @return number of rolls rejected for that reason
+     */
+    public long getRejected(RollStatus status) {
+        return rejections[status.ordinal()].sum();
+    }
+
+    /**
+     * a roll came in for a game id with no game
+     */
+    void unknownGame() {
+        unknownGames.increment();
+    }
+
+    void gameAdded() {
+        liveGames.increment();
+    }
+
+    void gameRemoved() {
+        liveGames.decrement();
+    }
+
+    /**
+     * Registers with the platform MBean server, so the metrics show up in JConsole, VisualVM, etc.
+     *
+     * @param name object name, e.g. "dius.test.bigreidy:type=BowlingMetrics"
+     * @throws IllegalArgumentException the name is not valid, or already registered
+     */
+    public void register(String name) throws IllegalArgumentException {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+        } catch (JMException ex) {
+            throw new IllegalArgumentException("Could not register metrics as " + name, ex);
+        }
+    }
+
+    /**
+     * Hands every metric to a sink by name, for pushing to a metrics registry other than JMX
+     *
+     * @param sink receives each metric's name and current value
+     */
+    public void report(ObjLongConsumer<String> sink) {
+        rolls.report("roll", sink);
+        scores.report("score", sink);
+        for (RollStatus status : statuses) {
+            if (status.isAccepted()) continue;
+            sink.accept("rejected." + rejectionName(status), getRejected(status));
+        }
+        sink.accept("rejected.unknownGame", unknownGames.sum());
+        sink.accept("liveGames", liveGames.sum());
+    }
+
+    /**
+     * Name each rejection is reported under, kept as first published whatever the statuses are called
+     */
+    private static String rejectionName(RollStatus status) {
+        switch (status) {
+            case NEGATIVE_PINS:
+                return "negativePins";
+            case TOO_MANY_PINS:
+                return "tooManyPins";
+            case FRAME_OVERFLOW:
+                return "frameOverflow";
+            case FRAME_COMPLETE:
+                return "frameComplete";
+            case MATCH_ENDED:
+                return "matchEnded";
+            case IMPOSSIBLE_PINS:
+                return "impossiblePins";
+            default:
+                throw new IllegalStateException("No metric for " + status);
+        }
+    }
+
+    @Override
+    public long getRollCount() {
+        return rolls.count();
+    }
+
+    @Override
+    public long getRollLatencyMedian() {
+        return rolls.valueAtPercentile(50);
+    }
+
+    @Override
+    public long getRollLatency99th() {
+        return rolls.valueAtPercentile(99);
+    }
+
+    @Override
+    public long getRollLatency999th() {
+        return rolls.valueAtPercentile(99.9);
+    }
+
+    @Override
+    public long getRollLatencyMax() {
+        return rolls.max();
+    }
+
+    @Override
+    public long getScoreCount() {
+        return scores.count();
+    }
+
+    @Override
+    public long getScoreLatency99th() {
+        return scores.valueAtPercentile(99);
+    }
+
+    @Override
+    public long getScoreLatencyMax() {
+        return scores.max();
+    }
+
+    @Override
+    public long getRejectedNegativePins() {
+        return getRejected(RollStatus.NEGATIVE_PINS);
+    }
+
+    @Override
+    public long getRejectedTooManyPins() {
+        return getRejected(RollStatus.TOO_MANY_PINS);
+    }
+
+    @Override
+    public long getRejectedFrameOverflow() {
+        return getRejected(RollStatus.FRAME_OVERFLOW);
+    }
+
+    @Override
+    public long getRejectedFrameComplete() {
+        return getRejected(RollStatus.FRAME_COMPLETE);
+    }
+
+    @Override
+    public long getRejectedMatchEnded() {
+        return getRejected(RollStatus.MATCH_ENDED);
+    }
+
+    @Override
+    public long getRejectedImpossiblePins() {
+        return getRejected(RollStatus.IMPOSSIBLE_PINS);
+    }
+
+    @Override
+    public long getRejectedUnknownGame() {
+        return unknownGames.sum();
+    }
+
+    @Override
+    public long getLiveGames() {
+        return liveGames.sum();
+    }
+
+    /**
+     * A lock-free histogram of non-negative values, in the style of HdrHistogram.
+     * Each power of two is split into 8 linear buckets, so a value is reported to within 12.5%, using a fixed
+     * 488 counters however large the values get. Each counter is a {@link LongAdder}, so lanes recording into
+     * the same bucket at once don't contend on one cache line.
+     */
+    public static final class Histogram {
+
+        private static final int subBucketBits = 3;
+        private static final int subBuckets = 1 << subBucketBits;
+        private static final int bucketCount = (Long.SIZE - 1 - subBucketBits + 1) * subBuckets;
+
+        private final LongAdder[] counts = new LongAdder[bucketCount];
+        private final AtomicLong max = new AtomicLong();
+
+        public Histogram() {
+            for (int i = 0; i < bucketCount; i++) {
+                counts[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * @param value to count, negative values are counted as 0
+         */
+        public void record(long value) {
+            if (value < 0) value = 0;
+            counts[bucketOf(value)].increment();
+            long previous = max.get();
+            while (value > previous && !max.compareAndSet(previous, value)) {
+                previous = max.get();
+            }
+        }
+
+        /**
+         * @return number of values recorded
+         */
+        public long count() {
+            long count = 0;
+            for (LongAdder bucket : counts) {
+                count += bucket.sum();
+            }
+            return count;
+        }
+
+        /**
+         * @return largest value recorded, exactly
+         */
+        public long max() {
+            return max.get();
+        }
+
+        /**
+         * @param percentile from 0 to 100
+         * @return a value at least as large as that percentage of the values recorded, 0 if there are none
+         */
+        public long valueAtPercentile(double percentile) {
+            long total = count();
+            if (total == 0) return 0;
+            long wanted = Math.max(1, (long) Math.ceil(total * percentile / 100));
+            long seen = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                seen += counts[i].sum();
+                if (seen >= wanted) return Math.min(highestInBucket(i), max());
+            }
+            return max();
+        }
+
+        private void report(String name, ObjLongConsumer<String> sink) {
+            sink.accept(name + ".count", count());
+            sink.accept(name + ".p50", valueAtPercentile(50));
+            sink.accept(name + ".p99", valueAtPercentile(99));
+            sink.accept(name + ".p999", valueAtPercentile(99.9));
+            sink.accept(name + ".max", max());
+        }
+
+        /**
+         * Values below 8 get a bucket each, after that the top 4 bits of the value pick the bucket
+         */
+        static int bucketOf(long value) {
+            if (value < subBuckets) return (int) value;
+            int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+            return (exponent - subBucketBits + 1) * subBuckets + subBucket;
+        }
+
+        static long highestInBucket(int bucket) {
+            if (bucket < subBuckets) return bucket;
+            int exponent = bucket / subBuckets + subBucketBits - 1;
+            long lowest = (long) (subBuckets + bucket % subBuckets) << (exponent - subBucketBits);
+            return lowest + (1L << (exponent - subBucketBits)) - 1;
+        }
+    }
+}
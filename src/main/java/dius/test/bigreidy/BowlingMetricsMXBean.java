@@ -0,0 +1,39 @@
+package dius.test.bigreidy;
+
+/**
+ * What {@link BowlingMetrics} shows over JMX. Latencies are in nanoseconds.
+ */
+public interface BowlingMetricsMXBean {
+
+    long getRollCount();
+
+    long getRollLatencyMedian();
+
+    long getRollLatency99th();
+
+    long getRollLatency999th();
+
+    long getRollLatencyMax();
+
+    long getScoreCount();
+
+    long getScoreLatency99th();
+
+    long getScoreLatencyMax();
+
+    long getRejectedNegativePins();
+
+    long getRejectedTooManyPins();
+
+    long getRejectedFrameOverflow();
+
+    long getRejectedFrameComplete();
+
+    long getRejectedMatchEnded();
+
+    long getRejectedImpossiblePins();
+
+    long getRejectedUnknownGame();
+
+    long getLiveGames();
+}
@@ -0,0 +1,216 @@
+package dius.test.bigreidy;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scores many games at once from their rolls, for rescoring archived games.
+ * Applies the same rules as {@link Frame} and {@link BowlingGame}, but over packed roll arrays in a
+ * tight loop, without creating any objects per game.
+ * There is a loop each for int and byte rolls, so each reads its array directly rather than through a
+ * shared accessor; the frame rules themselves are shared through {@link Frame}'s and {@link BowlingGame}'s statics.
+ */
+public final class BowlingScorer {
+
+    /**
+     * games scored by a single fork-join task before it stops splitting
+     */
+    private static final int gamesPerTask = 4096;
+
+    private BowlingScorer() {
+    }
+
+    /**
+     * Scores every game in a packed roll array.
+     * Game g is rolls[gameOffsets[g]] up to the start of the next game (or the end of the array for the last game).
+     * Games that have not finished are scored the same as {@link BowlingGame#score()} would mid-game.
+     *
+     * @param rolls       pins knocked down on each roll, every game one after the other
+     * @param gameOffsets index into rolls that each game starts at
+     * @param out         score of each game, must be at least as long as gameOffsets
+     * @throws IllegalArgumentException a game breaks the rules, the message says which game and why
+     */
+    public static void scoreAll(int[] rolls, int[] gameOffsets, int[] out) throws IllegalArgumentException {
+        checkLengths(rolls.length, gameOffsets, out);
+        for (int g = 0; g < gameOffsets.length; g++) {
+            int end = g + 1 < gameOffsets.length ? gameOffsets[g + 1] : rolls.length;
+            out[g] = scoreGame(g, rolls, gameOffsets[g], end);
+        }
+    }
+
+    /**
+     * Same as {@link #scoreAll(int[], int[], int[])}, for rolls stored a byte each
+     *
+     * @param rolls       pins knocked down on each roll, every game one after the other
+     * @param gameOffsets index into rolls that each game starts at
+     * @param out         score of each game, must be at least as long as gameOffsets
+     * @throws IllegalArgumentException a game breaks the rules, the message says which game and why
+     */
+    public static void scoreAll(byte[] rolls, int[] gameOffsets, int[] out) throws IllegalArgumentException {
+        checkLengths(rolls.length, gameOffsets, out);
+        for (int g = 0; g < gameOffsets.length; g++) {
+            int end = g + 1 < gameOffsets.length ? gameOffsets[g + 1] : rolls.length;
+            out[g] = scoreGame(g, rolls, gameOffsets[g], end);
+        }
+    }
+
+    /**
+     * Scores every game in a packed roll array across all cores, using the common fork-join pool.
+     * See {@link #scoreAll(int[], int[], int[])} for the layout of the rolls.
+     *
+     * @param rolls       pins knocked down on each roll, every game one after the other
+     * @param gameOffsets index into rolls that each game starts at
+     * @return score of each game, and the totals across them
+     * @throws IllegalArgumentException a game breaks the rules, the message says which game and why
+     */
+    public static ScoreSummary scoreAllParallel(int[] rolls, int[] gameOffsets) throws IllegalArgumentException {
+        return scoreAllParallel(rolls, gameOffsets, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Scores every game in a packed roll array, split across the given pool.
+     * The result is the same however the work is split.
+     *
+     * @param rolls       pins knocked down on each roll, every game one after the other
+     * @param gameOffsets index into rolls that each game starts at
+     * @param pool        pool to run the scoring on
+     * @return score of each game, and the totals across them
+     * @throws IllegalArgumentException a game breaks the rules, the message says which game and why
+     */
+    public static ScoreSummary scoreAllParallel(int[] rolls, int[] gameOffsets, ForkJoinPool pool)
+            throws IllegalArgumentException {
+        int[] scores = new int[gameOffsets.length];
+        checkLengths(rolls.length, gameOffsets, scores);
+        long[] histogram = pool.invoke(new ScoringTask(rolls, gameOffsets, scores, 0, gameOffsets.length));
+        return new ScoreSummary(scores, histogram);
+    }
+
+    /**
+     * Scores a range of games, splitting in half until the range is small enough.
+     * Returns the histogram of the scores so the totals can be added up deterministically.
+     */
+    private static class ScoringTask extends RecursiveTask<long[]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] rolls;
+        private final int[] gameOffsets;
+        private final int[] scores;
+        private final int from;
+        private final int to;
+
+        ScoringTask(int[] rolls, int[] gameOffsets, int[] scores, int from, int to) {
+            this.rolls = rolls;
+            this.gameOffsets = gameOffsets;
+            this.scores = scores;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > gamesPerTask) {
+                int middle = (from + to) >>> 1;
+                ScoringTask second = new ScoringTask(rolls, gameOffsets, scores, middle, to);
+                second.fork();
+                long[] histogram = new ScoringTask(rolls, gameOffsets, scores, from, middle).compute();
+                long[] secondHistogram = second.join();
+                for (int score = 0; score < histogram.length; score++) {
+                    histogram[score] += secondHistogram[score];
+                }
+                return histogram;
+            }
+            long[] histogram = new long[BowlingGame.maxScore + 1];
+            for (int g = from; g < to; g++) {
+                int end = g + 1 < gameOffsets.length ? gameOffsets[g + 1] : rolls.length;
+                int score = scoreGame(g, rolls, gameOffsets[g], end);
+                scores[g] = score;
+                histogram[score]++;
+            }
+            return histogram;
+        }
+    }
+
+    private static void checkLengths(int rollCount, int[] gameOffsets, int[] out) {
+        if (out.length < gameOffsets.length) {
+            throw new IllegalArgumentException("Not enough room for a score per game");
+        }
+        checkOffsets(rollCount, gameOffsets);
+    }
+
+    static void checkOffsets(int rollCount, int[] gameOffsets) {
+        int previous = 0;
+        for (int offset : gameOffsets) {
+            if (offset < previous || offset > rollCount) {
+                throw new IllegalArgumentException("Game offsets must be in order and within the rolls");
+            }
+            previous = offset;
+        }
+    }
+
+    /**
+     * The same steps as {@link BowlingGame#roll(int)}, on local variables
+     *
+     * @param game  index of the game, for the error message
+     * @param rolls pins knocked down on each roll
+     * @param from  index of the first roll of the game
+     * @param to    index after the last roll of the game
+     * @return score of the game
+     */
+    static int scoreGame(int game, int[] rolls, int from, int to) {
+        int frameIdx = 0;
+        int packedFrame = 0;
+        int frameRollCount = 0;
+        int openBonuses = 0;
+        int score = 0;
+        for (int i = from; i < to; i++) {
+            if (frameIdx >= BowlingGame.maxFrames) throw invalidGame(game, RollStatus.MATCH_ENDED);
+            int pins = rolls[i];
+            boolean lastFrame = frameIdx == BowlingGame.maxFrames - 1;
+            RollStatus status = Frame.checkBowl(lastFrame, packedFrame, frameRollCount, pins);
+            if (status != RollStatus.ACCEPTED) throw invalidGame(game, status);
+            packedFrame = Frame.withRoll(packedFrame, frameRollCount++, pins);
+            score += BowlingGame.rollValue(openBonuses, pins);
+            openBonuses = BowlingGame.closeBonuses(openBonuses);
+            if (!Frame.canBowlAgain(lastFrame, packedFrame, frameRollCount)) {
+                if (!lastFrame) openBonuses = BowlingGame.openBonus(openBonuses, packedFrame, frameRollCount);
+                frameIdx++;
+                packedFrame = 0;
+                frameRollCount = 0;
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Same as {@link #scoreGame(int, int[], int, int)}, for rolls stored a byte each
+     */
+    static int scoreGame(int game, byte[] rolls, int from, int to) {
+        int frameIdx = 0;
+        int packedFrame = 0;
+        int frameRollCount = 0;
+        int openBonuses = 0;
+        int score = 0;
+        for (int i = from; i < to; i++) {
+            if (frameIdx >= BowlingGame.maxFrames) throw invalidGame(game, RollStatus.MATCH_ENDED);
+            int pins = rolls[i];
+            boolean lastFrame = frameIdx == BowlingGame.maxFrames - 1;
+            RollStatus status = Frame.checkBowl(lastFrame, packedFrame, frameRollCount, pins);
+            if (status != RollStatus.ACCEPTED) throw invalidGame(game, status);
+            packedFrame = Frame.withRoll(packedFrame, frameRollCount++, pins);
+            score += BowlingGame.rollValue(openBonuses, pins);
+            openBonuses = BowlingGame.closeBonuses(openBonuses);
+            if (!Frame.canBowlAgain(lastFrame, packedFrame, frameRollCount)) {
+                if (!lastFrame) openBonuses = BowlingGame.openBonus(openBonuses, packedFrame, frameRollCount);
+                frameIdx++;
+                packedFrame = 0;
+                frameRollCount = 0;
+            }
+        }
+        return score;
+    }
+
+    private static IllegalArgumentException invalidGame(int game, RollStatus status) {
+        return new IllegalArgumentException("Game " + game + ": " + status.getMessage());
+    }
+}
@@ -1,21 +1,26 @@
 package dius.test.bigreidy;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 /**
  * Frame class will keep track and manage each frame of bowling.
  * Expectation is that the caller will know to check if the frame can be bowled again.
  * Lombok's getter/setter simplifier would reduce template code.
  * We're going to use generic exception here, rather than creating our own.
+ * <p>
+ * The (at most 3) rolls are packed 4 bits each into a single int, so bowling never allocates.
+ * The rules are also available as static functions over that packed form, so other scorers
+ * can apply exactly the same rules without needing a Frame object.
  */
 public class Frame {
 
-    private final Map<Integer, Integer> frameScoreMap;
+    protected static final int maxPins = 10;
+    private static final int rollBits = 4;
+    private static final int rollMask = (1 << rollBits) - 1;
+
     private final boolean lastFrame;
+    private int packedRolls;
     private int bowlIdx;
 
     /**
@@ -25,8 +30,8 @@ public class Frame {
      * @param isLastFrame last frame indicator for behaviour
      */
     public Frame(boolean isLastFrame) {
-        frameScoreMap = new HashMap<>();
         lastFrame = isLastFrame;
+        packedRolls = 0;
         bowlIdx = 0;
     }
 
@@ -36,17 +41,7 @@ public class Frame {
      * @return whether you can take another bowl this Frame
      */
     public boolean canBowlAgain() {
-        if (lastFrame) {
-            if (!isStrike() && !isSpare()) {
-                //If you get a strike or spare, you get all 3 roles, therefore, if neither, only 2 rolls
-                return bowlIdx < 2;
-            }
-            return bowlIdx < 3;
-        }
-        if (isStrike()) {
-            return false;
-        }
-        return bowlIdx < 2;
+        return canBowlAgain(lastFrame, packedRolls, bowlIdx);
     }
 
     /**
@@ -56,46 +51,56 @@ public class Frame {
      * @throws IllegalStateException This function was called in an incorrect state
      */
     public void bowl(int score) throws IllegalStateException, IllegalArgumentException {
-        if (!canBowlAgain()) {
-            throw new IllegalStateException("Cannot bowl again for this frame");
-        }
-        if (score < 0) {
-            throw new IllegalArgumentException("Cannot bowl negative numbers of pins");
-        }
-        if (score > 10) {
-            throw new IllegalArgumentException("Cannot Bowl More Than 10 pins in a single bowl");
-        }
-        if (!lastFrame) {
-            if (bowlIdx == 1 && (frameScoreMap.get(0) + score) > 10) {
-                throw new IllegalArgumentException("Cannot Bowl More Than 10 pins total for a frame");
-            }
-        } else {
-            if (bowlIdx == 1) {
-                // If on the second ball, and the first one's a strike, then we don't sum it
-                if (!isStrike() && (frameScoreMap.get(0) + score) > 10) {
-                    throw new IllegalArgumentException("Cannot Bowl More Than 10 pins total for a frame");
-                }
-            }
-            if (bowlIdx == 2 && isStrike()) {
-                // IF on the third ball, and the first was a strike, we need to check maximum when second isn't a strike
-                int secondBowl = frameScoreMap.get(1);
-                if (!isLastFrameSecondStrike() && (secondBowl + score) > 10) {
-                    throw new IllegalArgumentException("Cannot Bowl More Than 10 pins total for a frame");
-                }
-            }
+        tryBowl(score).throwIfRejected();
+    }
 
-        }
-        frameScoreMap.put(this.bowlIdx, score);
+    /**
+     * bowl for a frame, without throwing if the bowl isn't allowed
+     *
+     * @param score number of pins knocked down
+     * @return {@link RollStatus#ACCEPTED}, or why the bowl was not recorded
+     */
+    public RollStatus tryBowl(int score) {
+        RollStatus status = checkBowl(lastFrame, packedRolls, bowlIdx, score);
+        if (status != RollStatus.ACCEPTED) return status;
+        packedRolls = withRoll(packedRolls, bowlIdx, score);
         bowlIdx++;
+        return status;
     }
 
     /**
      * Return the total score for this frame
+     * Copies into a new list, use {@link #rollAt(int)} and {@link #rollCount()} to avoid the allocation
      *
      * @return sum of the scored values
      */
     public List<Integer> getScores() {
-        return new ArrayList<>(frameScoreMap.values());
+        List<Integer> scores = new ArrayList<>(bowlIdx);
+        for (int i = 0; i < bowlIdx; i++) {
+            scores.add(rollAt(i));
+        }
+        return scores;
+    }
+
+    /**
+     * number of pins knocked down on a single bowl of this frame
+     *
+     * @param rollIndex bowl within the frame, starting at 0
+     * @return pins knocked down
+     * @throws IndexOutOfBoundsException that bowl has not happened yet
+     */
+    public int rollAt(int rollIndex) {
+        if (rollIndex < 0 || rollIndex >= bowlIdx) {
+            throw new IndexOutOfBoundsException("No bowl " + rollIndex + " in this frame");
+        }
+        return rollAt(packedRolls, rollIndex);
+    }
+
+    /**
+     * @return number of bowls taken so far this frame
+     */
+    public int rollCount() {
+        return bowlIdx;
     }
 
     /**
@@ -104,10 +109,7 @@ public class Frame {
      * @return whether it is a strike
      */
     public boolean isStrike() {
-        if (frameScoreMap.size() < 1) {
-            return false;
-        }
-        return frameScoreMap.get(0) == 10;
+        return isStrike(packedRolls, bowlIdx);
     }
 
     /**
@@ -116,10 +118,10 @@ public class Frame {
      * @return whether it is a strike
      */
     public boolean isLastFrameSecondStrike() {
-        if (!lastFrame || frameScoreMap.size() < 2) {
+        if (!lastFrame || bowlIdx < 2) {
             return false;
         }
-        return frameScoreMap.get(1) == 10;
+        return rollAt(packedRolls, 1) == maxPins;
     }
 
     /**
@@ -128,10 +130,10 @@ public class Frame {
      * @return whether it is a strike
      */
     public boolean isLastFrameThirdStrike() {
-        if (!lastFrame || frameScoreMap.size() < 3) {
+        if (!lastFrame || bowlIdx < 3) {
             return false;
         }
-        return frameScoreMap.get(2) == 10;
+        return rollAt(packedRolls, 2) == maxPins;
     }
 
     /**
@@ -140,11 +142,7 @@ public class Frame {
      * @return whether it is a spare
      */
     public boolean isSpare() {
-        if (frameScoreMap.size() < 2) {
-            return false;
-        }
-        int total = frameScoreMap.get(0) + frameScoreMap.get(1);
-        return total == 10;
+        return isSpare(packedRolls, bowlIdx);
     }
 
     /**
@@ -153,14 +151,122 @@ public class Frame {
      * @return formatted output of the frame
      */
     protected String getPrintFriendlyText() {
-        String values = frameScoreMap.values().stream()
-                .map(f -> {
-                    if (f == 10) return "X";
-                    else return f;
-                })
-                .map(Object::toString)
-                .collect(Collectors.joining(","));
-        if (canBowlAgain()) return values + ", ";
-        return values;
+        StringBuilder values = new StringBuilder();
+        appendPrintFriendlyText(values, lastFrame, packedRolls, bowlIdx);
+        return values.toString();
+    }
+
+    static void appendPrintFriendlyText(StringBuilder values, boolean lastFrame, int packedRolls, int bowlCount) {
+        for (int i = 0; i < bowlCount; i++) {
+            if (i > 0) values.append(',');
+            int pins = rollAt(packedRolls, i);
+            if (pins == maxPins) values.append('X');
+            else values.append(pins);
+        }
+        if (canBowlAgain(lastFrame, packedRolls, bowlCount)) values.append(", ");
+    }
+
+    /**
+     * read a single bowl out of the packed rolls
+     *
+     * @param packedRolls rolls of a frame, as stored by {@link #withRoll(int, int, int)}
+     * @param rollIndex   bowl within the frame
+     * @return pins knocked down
+     */
+    static int rollAt(int packedRolls, int rollIndex) {
+        return (packedRolls >>> (rollIndex * rollBits)) & rollMask;
+    }
+
+    /**
+     * add a bowl to the packed rolls
+     *
+     * @param packedRolls rolls of a frame so far
+     * @param rollIndex   bowl within the frame
+     * @param pins        pins knocked down, already validated
+     * @return packed rolls including the new bowl
+     */
+    static int withRoll(int packedRolls, int rollIndex, int pins) {
+        int shift = rollIndex * rollBits;
+        return (packedRolls & ~(rollMask << shift)) | (pins << shift);
+    }
+
+    static boolean isStrike(int packedRolls, int bowlCount) {
+        return bowlCount >= 1 && rollAt(packedRolls, 0) == maxPins;
+    }
+
+    static boolean isSpare(int packedRolls, int bowlCount) {
+        return bowlCount >= 2 && rollAt(packedRolls, 0) + rollAt(packedRolls, 1) == maxPins;
+    }
+
+    static boolean canBowlAgain(boolean lastFrame, int packedRolls, int bowlCount) {
+        if (lastFrame) {
+            if (!isStrike(packedRolls, bowlCount) && !isSpare(packedRolls, bowlCount)) {
+                //If you get a strike or spare, you get all 3 roles, therefore, if neither, only 2 rolls
+                return bowlCount < 2;
+            }
+            return bowlCount < 3;
+        }
+        if (isStrike(packedRolls, bowlCount)) {
+            return false;
+        }
+        return bowlCount < 2;
+    }
+
+    /**
+     * How many pins are left standing for the next bowl.
+     * On the last frame the pins are reset after a strike or a spare.
+     *
+     * @param lastFrame   last frame indicator for behaviour
+     * @param packedRolls rolls of the frame so far
+     * @param bowlCount   number of bowls taken so far
+     * @return pins that can be knocked down on the next bowl
+     */
+    static int pinsStanding(boolean lastFrame, int packedRolls, int bowlCount) {
+        if (bowlCount == 0) return maxPins;
+        int previous = rollAt(packedRolls, bowlCount - 1);
+        if (!lastFrame) return maxPins - previous;
+        if (bowlCount == 1) {
+            return previous == maxPins ? maxPins : maxPins - previous;
+        }
+        // Third ball: if the first was a strike, then the second ball is on a fresh rack
+        if (isStrike(packedRolls, bowlCount) && previous != maxPins) {
+            return maxPins - previous;
+        }
+        return maxPins;
+    }
+
+    /**
+     * Whether the next bowl is at a freshly set rack, rather than at pins a previous bowl left.
+     * Can't just check the pins standing, a gutter ball leaves all 10 up.
+     *
+     * @param lastFrame   last frame indicator for behaviour
+     * @param packedRolls rolls of the frame so far
+     * @param bowlCount   number of bowls taken so far
+     * @return whether all the pins have been set up for the next bowl
+     */
+    static boolean isFullRack(boolean lastFrame, int packedRolls, int bowlCount) {
+        if (bowlCount == 0) return true;
+        if (!lastFrame) return false;
+        int first = rollAt(packedRolls, 0);
+        if (bowlCount == 1) return first == maxPins;
+        int second = rollAt(packedRolls, 1);
+        return first == maxPins ? second == maxPins : first + second == maxPins;
+    }
+
+    /**
+     * Checks a bowl against the rules for a frame, without throwing
+     *
+     * @param lastFrame   last frame indicator for behaviour
+     * @param packedRolls rolls of the frame so far
+     * @param bowlCount   number of bowls taken so far
+     * @param score       number of pins knocked down
+     * @return {@link RollStatus#ACCEPTED}, or which rule the bowl breaks
+     */
+    static RollStatus checkBowl(boolean lastFrame, int packedRolls, int bowlCount, int score) {
+        if (!canBowlAgain(lastFrame, packedRolls, bowlCount)) return RollStatus.FRAME_COMPLETE;
+        if (score < 0) return RollStatus.NEGATIVE_PINS;
+        if (score > maxPins) return RollStatus.TOO_MANY_PINS;
+        if (score > pinsStanding(lastFrame, packedRolls, bowlCount)) return RollStatus.FRAME_OVERFLOW;
+        return RollStatus.ACCEPTED;
     }
 }
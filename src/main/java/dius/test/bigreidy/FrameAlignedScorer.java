@@ -0,0 +1,136 @@
+package dius.test.bigreidy;
+
+import java.util.Arrays;
+
+/**
+ * Scores large batches of completed games, laid out so the JIT can vectorise the scoring loops.
+ * <p>
+ * Games are stored as a struct of arrays in {@link #boxCount} boxes, like the boxes on a paper scorecard:
+ * frame f's bowls go in boxes 2f and 2f + 1 (a strike leaves its second box 0), and the last frame's bowls in
+ * boxes 18 to 20. Box b of every game is one contiguous run, so box b of game g is at {@code b * games + g}.
+ * With every frame at a fixed box, a strike or spare's bonus is always in a known box, and scoring is a few
+ * passes over all games at once of adds and selects, with no branches on the pins.
+ * <p>
+ * Gives exactly the same scores as {@link BowlingScorer}, which is the one to use for games still in progress.
+ */
+public final class FrameAlignedScorer {
+
+    public static final int boxCount = BowlingGame.maxRolls;
+    private static final int lastFrameBox = 2 * (BowlingGame.maxFrames - 1);
+
+    private FrameAlignedScorer() {
+    }
+
+    /**
+     * Copies completed games from a packed roll array into boxes, checking every bowl with {@link Frame}'s rules.
+     * See {@link BowlingScorer#scoreAll(int[], int[], int[])} for the layout of the rolls.
+     *
+     * @param rolls       pins knocked down on each roll, every game one after the other
+     * @param gameOffsets index into rolls that each game starts at
+     * @param boxes       receives the boxes of every game, must be at least {@link #boxCount} times the number of games
+     * @throws IllegalArgumentException a game breaks the rules or hasn't finished, the message says which game and why
+     */
+    public static void layout(int[] rolls, int[] gameOffsets, byte[] boxes) throws IllegalArgumentException {
+        int games = gameOffsets.length;
+        checkBoxes(boxes, games);
+        BowlingScorer.checkOffsets(rolls.length, gameOffsets);
+        for (int g = 0; g < games; g++) {
+            int end = g + 1 < games ? gameOffsets[g + 1] : rolls.length;
+            layoutGame(g, games, rolls, gameOffsets[g], end, boxes);
+        }
+    }
+
+    private static void layoutGame(int game, int games, int[] rolls, int from, int to, byte[] boxes) {
+        for (int b = 0; b < boxCount; b++) {
+            boxes[b * games + game] = 0;
+        }
+        int frameIdx = 0;
+        int packedFrame = 0;
+        int frameRollCount = 0;
+        for (int i = from; i < to; i++) {
+            if (frameIdx >= BowlingGame.maxFrames) throw invalidGame(game, RollStatus.MATCH_ENDED.getMessage());
+            int pins = rolls[i];
+            boolean lastFrame = frameIdx == BowlingGame.maxFrames - 1;
+            RollStatus status = Frame.checkBowl(lastFrame, packedFrame, frameRollCount, pins);
+            if (status != RollStatus.ACCEPTED) throw invalidGame(game, status.getMessage());
+            boxes[(2 * frameIdx + frameRollCount) * games + game] = (byte) pins;
+            packedFrame = Frame.withRoll(packedFrame, frameRollCount++, pins);
+            if (!Frame.canBowlAgain(lastFrame, packedFrame, frameRollCount)) {
+                frameIdx++;
+                packedFrame = 0;
+                frameRollCount = 0;
+            }
+        }
+        if (frameIdx < BowlingGame.maxFrames) throw invalidGame(game, "Game has not finished");
+    }
+
+    /**
+     * Scores every game in the boxes. The boxes must hold legal completed games, e.g. from
+     * {@link #layout(int[], int[], byte[])}, as they are not checked again.
+     *
+     * @param boxes box b of game g at b * games + g
+     * @param games number of games in the boxes
+     * @param out   score of each game, must be at least games long
+     */
+    public static void scoreAll(byte[] boxes, int games, int[] out) {
+        checkBoxes(boxes, games);
+        if (out.length < games) {
+            throw new IllegalArgumentException("Not enough room for a score per game");
+        }
+        Arrays.fill(out, 0, games, 0);
+        // a strike's bonus is the next frame's two bowls, or its first bowl and the one after it if that is a strike too
+        for (int f = 0; f < BowlingGame.maxFrames - 2; f++) {
+            int first = 2 * f * games;
+            int second = first + games;
+            int next = second + games;
+            int nextSecond = next + games;
+            int afterNext = nextSecond + games;
+            for (int g = 0; g < games; g++) {
+                int firstPins = boxes[first + g];
+                int pins = firstPins + boxes[second + g];
+                int nextPins = boxes[next + g];
+                int strikeBonus = nextPins + (nextPins == Frame.maxPins ? boxes[afterNext + g] : boxes[nextSecond + g]);
+                int bonus = firstPins == Frame.maxPins ? strikeBonus : pins == Frame.maxPins ? nextPins : 0;
+                out[g] += pins + bonus;
+            }
+        }
+        // the frame before the last, whose strike bonus is always the last frame's first two bowls
+        int first = (lastFrameBox - 2) * games;
+        int second = first + games;
+        int last = lastFrameBox * games;
+        int lastSecond = last + games;
+        int lastThird = lastSecond + games;
+        for (int g = 0; g < games; g++) {
+            int firstPins = boxes[first + g];
+            int pins = firstPins + boxes[second + g];
+            int lastPins = boxes[last + g];
+            int lastSecondPins = boxes[lastSecond + g];
+            int bonus = firstPins == Frame.maxPins ? lastPins + lastSecondPins : pins == Frame.maxPins ? lastPins : 0;
+            out[g] += pins + bonus + lastPins + lastSecondPins + boxes[lastThird + g];
+        }
+    }
+
+    /**
+     * Lays out and scores completed games in one go
+     *
+     * @param rolls       pins knocked down on each roll, every game one after the other
+     * @param gameOffsets index into rolls that each game starts at
+     * @param out         score of each game, must be at least as long as gameOffsets
+     * @throws IllegalArgumentException a game breaks the rules or hasn't finished, the message says which game and why
+     */
+    public static void scoreCompleted(int[] rolls, int[] gameOffsets, int[] out) throws IllegalArgumentException {
+        byte[] boxes = new byte[boxCount * gameOffsets.length];
+        layout(rolls, gameOffsets, boxes);
+        scoreAll(boxes, gameOffsets.length, out);
+    }
+
+    private static void checkBoxes(byte[] boxes, int games) {
+        if (games < 0 || (long) boxes.length < (long) boxCount * games) {
+            throw new IllegalArgumentException("Not enough boxes for every game");
+        }
+    }
+
+    private static IllegalArgumentException invalidGame(int game, String message) {
+        return new IllegalArgumentException("Game " + game + ": " + message);
+    }
+}
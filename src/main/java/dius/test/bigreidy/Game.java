@@ -0,0 +1,40 @@
+package dius.test.bigreidy;
+
+/**
+ * A single player's game, under any {@link RuleSet}.
+ * Callers that only ever play ten-pin can keep using {@link BowlingGame} directly.
+ */
+public interface Game {
+
+    /**
+     * records the bowl, and will roll the frame over if needed
+     *
+     * @param noOfPins knocked down in this bowl, or for 5-pin the points they are worth
+     * @throws IllegalStateException    the match has ended
+     * @throws IllegalArgumentException the number of pins is not possible
+     */
+    void roll(int noOfPins) throws IllegalStateException, IllegalArgumentException;
+
+    /**
+     * records the bowl if it is allowed
+     *
+     * @param noOfPins knocked down in this bowl, or for 5-pin the points they are worth
+     * @return {@link RollStatus#ACCEPTED}, or why the bowl was not recorded, the game is left as it was
+     */
+    RollStatus tryRoll(int noOfPins);
+
+    /**
+     * @return total amount of points scored so far
+     */
+    int score();
+
+    /**
+     * @return has the matched ended
+     */
+    boolean isMatchEnded();
+
+    /**
+     * @return index of the frame the next bowl will be in, or the number of frames once the match has ended
+     */
+    int getFrameIndex();
+}
@@ -0,0 +1,388 @@
+package dius.test.bigreidy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Live games for a whole bowling centre, keyed by lane or game id, safe to use from many threads.
+ * Rolls lock only the game they are for, so different lanes never wait on each other.
+ * Starting or removing a game retires the game it replaces under that game's lock, so a roll that was already
+ * in progress on it finishes first, and a roll that arrives later goes to the new game (or is refused).
+ * Once a roll has been applied, the score and match ended flag are published together in one volatile
+ * write, so reading them never blocks and never sees a half-applied roll.
+ * <p>
+ * If given a {@link RollLog}, every game started or removed and every roll accepted is appended to it,
+ * in order per game.
+ * Committing the log is left to the caller, so rolls from many lanes can share a commit.
+ * If given a {@link Leaderboard}, each game's score is kept up to date on it, using the game id as the player.
+ * If given {@link BowlingMetrics}, rolls and score reads are timed, and rejected rolls counted, including rolls
+ * for ids with no game.
+ */
+public class GameRegistry {
+
+    private final ConcurrentMap<Integer, LiveGame> games = new ConcurrentHashMap<>();
+    /**
+     * log new games append to, each game keeps its own so {@link #switchLog} can move them over one at a time
+     */
+    private volatile RollLog rollLog;
+    private final Leaderboard leaderboard;
+    private final BowlingMetrics metrics;
+
+    public GameRegistry() {
+        this(null, null, null);
+    }
+
+    /**
+     * @param rollLog log to append games and rolls to, or null to not log them
+     */
+    public GameRegistry(RollLog rollLog) {
+        this(rollLog, null, null);
+    }
+
+    /**
+     * @param rollLog     log to append games and rolls to, or null to not log them
+     * @param leaderboard leaderboard to keep the scores on, or null. Game ids must be below its capacity.
+     */
+    public GameRegistry(RollLog rollLog, Leaderboard leaderboard) {
+        this(rollLog, leaderboard, null);
+    }
+
+    /**
+     * @param rollLog     log to append games and rolls to, or null to not log them
+     * @param leaderboard leaderboard to keep the scores on, or null. Game ids must be below its capacity.
+     * @param metrics     metrics to record to, or null to not record any
+     */
+    public GameRegistry(RollLog rollLog, Leaderboard leaderboard, BowlingMetrics metrics) {
+        this.rollLog = rollLog;
+        this.leaderboard = leaderboard;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Starts a new game, replacing any game already under that id
+     *
+     * @param gameId lane or game id
+     * @throws IllegalArgumentException there is a leaderboard, and the id is outside its capacity
+     * @throws UncheckedIOException     the game could not be logged
+     */
+    public void start(int gameId) throws IllegalArgumentException, UncheckedIOException {
+        checkId(gameId);
+        LiveGame liveGame = new LiveGame();
+        synchronized (liveGame) {
+            replace(gameId, liveGame);
+            rank(gameId, liveGame);
+            log(liveGame, gameId, 0, RollLog.gameStarted);
+        }
+    }
+
+    /**
+     * Records a bowl for a game, see {@link BowlingGame#roll(int)}
+     *
+     * @param gameId   lane or game id
+     * @param noOfPins knocked down in this bowl
+     * @throws IllegalArgumentException there is no such game, or the bowl is not possible
+     * @throws IllegalStateException    the match has ended
+     * @throws UncheckedIOException     the roll was applied, but could not be logged
+     */
+    public void roll(int gameId, int noOfPins)
+            throws IllegalArgumentException, IllegalStateException, UncheckedIOException {
+        tryRoll(gameId, noOfPins).throwIfRejected();
+    }
+
+    /**
+     * Records a bowl for a game if it is allowed, see {@link BowlingGame#tryRoll(int)}
+     *
+     * @param gameId   lane or game id
+     * @param noOfPins knocked down in this bowl
+     * @return {@link RollStatus#ACCEPTED}, or why the bowl was not recorded
+     * @throws IllegalArgumentException there is no such game
+     * @throws UncheckedIOException     the roll was applied, but could not be logged
+     */
+    public RollStatus tryRoll(int gameId, int noOfPins) throws IllegalArgumentException, UncheckedIOException {
+        long start = metrics == null ? 0 : System.nanoTime();
+        for (;;) {
+            LiveGame liveGame = games.get(gameId);
+            if (liveGame == null) {
+                if (metrics != null) metrics.unknownGame();
+                checkId(gameId);
+                throw noGame(gameId);
+            }
+            synchronized (liveGame) {
+                if (liveGame.retired) continue;
+                int frame = liveGame.game.getFrameIndex();
+                RollStatus status = liveGame.game.tryRoll(noOfPins);
+                if (status != RollStatus.ACCEPTED) {
+                    if (metrics != null) metrics.rejected(status);
+                    return status;
+                }
+                liveGame.publish();
+                rank(gameId, liveGame);
+                log(liveGame, gameId, frame, noOfPins);
+            }
+            if (metrics != null) metrics.rollTook(start);
+            return RollStatus.ACCEPTED;
+        }
+    }
+
+    /**
+     * Starts a game without logging it, for replaying a log
+     *
+     * @param gameId lane or game id
+     */
+    void applyStart(int gameId) {
+        applyGame(gameId, new BowlingGame());
+    }
+
+    /**
+     * Applies a roll without logging it, for replaying a log
+     *
+     * @param gameId   lane or game id
+     * @param noOfPins knocked down in this bowl
+     */
+    void applyRoll(int gameId, int noOfPins) {
+        for (;;) {
+            LiveGame liveGame = get(gameId);
+            synchronized (liveGame) {
+                if (liveGame.retired) continue;
+                liveGame.game.roll(noOfPins);
+                liveGame.publish();
+                rank(gameId, liveGame);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Called holding the game's lock, so the leaderboard sees each game's scores in order
+     */
+    private void rank(int gameId, LiveGame liveGame) {
+        if (leaderboard == null) return;
+        leaderboard.update(gameId, LiveGame.score(liveGame.published));
+    }
+
+    /**
+     * Called holding the game's lock, so its records are in order and go to the log it is on
+     */
+    private void log(LiveGame liveGame, int gameId, int frame, int pins) {
+        if (liveGame.log == null) return;
+        try {
+            liveGame.log.append(gameId, frame, pins);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Current score of a game, as of the last roll that was fully applied.
+     * Never waits on a roll in progress.
+     *
+     * @param gameId lane or game id
+     * @return total amount of points scored so far
+     * @throws IllegalArgumentException there is no such game
+     */
+    public int score(int gameId) throws IllegalArgumentException {
+        if (metrics == null) return LiveGame.score(get(gameId).published);
+        long start = System.nanoTime();
+        int score = LiveGame.score(get(gameId).published);
+        metrics.scoreTook(start);
+        return score;
+    }
+
+    /**
+     * @param gameId lane or game id
+     * @return has the matched ended
+     * @throws IllegalArgumentException there is no such game
+     */
+    public boolean isMatchEnded(int gameId) throws IllegalArgumentException {
+        return LiveGame.isMatchEnded(get(gameId).published);
+    }
+
+    /**
+     * @param gameId lane or game id
+     * @return whether there is a game under that id
+     */
+    public boolean contains(int gameId) {
+        return games.containsKey(gameId);
+    }
+
+    /**
+     * Stops tracking a game
+     *
+     * @param gameId lane or game id
+     * @return whether there was a game to remove
+     * @throws UncheckedIOException the game was removed, but that could not be logged
+     */
+    public boolean remove(int gameId) throws UncheckedIOException {
+        return remove(gameId, true);
+    }
+
+    /**
+     * Removes a game without logging it, for replaying a log
+     *
+     * @param gameId lane or game id
+     */
+    void applyRemove(int gameId) {
+        remove(gameId, false);
+    }
+
+    private boolean remove(int gameId, boolean logged) {
+        for (;;) {
+            LiveGame liveGame = games.get(gameId);
+            if (liveGame == null) return false;
+            synchronized (liveGame) {
+                if (liveGame.retired) continue;
+                // logged and unranked while still in the map, so a game started under the id next comes after
+                if (logged) log(liveGame, gameId, 0, RollLog.gameRemoved);
+                if (leaderboard != null) leaderboard.remove(gameId);
+                liveGame.retired = true;
+                games.remove(gameId, liveGame);
+                if (metrics != null) metrics.gameRemoved();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @return number of games being tracked
+     */
+    public int size() {
+        return games.size();
+    }
+
+    /**
+     * Puts an already played game under an id, replacing any game already there, without logging it
+     *
+     * @param gameId lane or game id
+     * @param game   game to track, the registry takes it over
+     */
+    void applyGame(int gameId, BowlingGame game) {
+        checkId(gameId);
+        LiveGame liveGame = new LiveGame(game);
+        synchronized (liveGame) {
+            replace(gameId, liveGame);
+            rank(gameId, liveGame);
+        }
+    }
+
+    /**
+     * Puts a game under an id, retiring the game it replaces while holding that game's lock.
+     * Called holding the new game's lock, so rolls that find the new game wait until it has been logged.
+     * The game only picks its log once it is in the map, so a {@link #switchLog} that misses it has
+     * already put it on the new log.
+     */
+    private void replace(int gameId, LiveGame liveGame) {
+        for (;;) {
+            LiveGame old = games.get(gameId);
+            if (old == null) {
+                if (games.putIfAbsent(gameId, liveGame) != null) continue;
+                if (metrics != null) metrics.gameAdded();
+                break;
+            }
+            synchronized (old) {
+                if (!games.replace(gameId, old, liveGame)) continue;
+                old.retired = true;
+                break;
+            }
+        }
+        liveGame.log = rollLog;
+    }
+
+    /**
+     * Hands each game to the visitor while holding its lock, so no roll is half applied
+     *
+     * @param visitor receives each game and its id
+     */
+    void forEachGame(ObjIntConsumer<BowlingGame> visitor) {
+        games.forEach((gameId, liveGame) -> {
+            synchronized (liveGame) {
+                if (!liveGame.retired) visitor.accept(liveGame.game, gameId);
+            }
+        });
+    }
+
+    /**
+     * Hands each game to the visitor while holding its lock, and moves it over to a new log in the same step.
+     * A game's records from before it was visited are in the old log, and the rest in the new one.
+     * Games started from now on go straight to the new log.
+     *
+     * @param visitor receives each game and its id
+     * @param newLog  log to append to from now on, or null to stop logging
+     * @return the log being appended to before, which gets nothing more once this returns
+     */
+    synchronized RollLog switchLog(ObjIntConsumer<BowlingGame> visitor, RollLog newLog) {
+        RollLog oldLog = rollLog;
+        rollLog = newLog;
+        games.forEach((gameId, liveGame) -> {
+            synchronized (liveGame) {
+                if (liveGame.retired) return;
+                visitor.accept(liveGame.game, gameId);
+                liveGame.log = newLog;
+            }
+        });
+        return oldLog;
+    }
+
+    /**
+     * Checked before anything is changed, so an id the leaderboard has no room for never gets half added
+     */
+    private void checkId(int gameId) {
+        if (leaderboard != null && (gameId < 0 || gameId >= leaderboard.capacity())) {
+            throw new IllegalArgumentException("Game id must be between 0 and " + (leaderboard.capacity() - 1));
+        }
+    }
+
+    private LiveGame get(int gameId) {
+        LiveGame liveGame = games.get(gameId);
+        if (liveGame == null) throw noGame(gameId);
+        return liveGame;
+    }
+
+    private static IllegalArgumentException noGame(int gameId) {
+        return new IllegalArgumentException("No game for id " + gameId);
+    }
+
+    /**
+     * A game and the last published view of it.
+     * The game is only touched while holding this object's lock.
+     */
+    private static final class LiveGame {
+
+        private final BowlingGame game;
+        /**
+         * no longer under its id, set and read holding this object's lock
+         */
+        private boolean retired = false;
+        /**
+         * where this game's records go, or null. Set and read holding this object's lock.
+         */
+        private RollLog log;
+        /**
+         * score shifted up one bit, with the match ended flag in the low bit
+         */
+        private volatile int published;
+
+        private LiveGame() {
+            this(new BowlingGame());
+        }
+
+        private LiveGame(BowlingGame game) {
+            this.game = game;
+            publish();
+        }
+
+        private void publish() {
+            published = (game.score() << 1) | (game.isMatchEnded() ? 1 : 0);
+        }
+
+        private static int score(int published) {
+            return published >>> 1;
+        }
+
+        private static boolean isMatchEnded(int published) {
+            return (published & 1) != 0;
+        }
+    }
+}
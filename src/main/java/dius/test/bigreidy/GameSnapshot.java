@@ -0,0 +1,194 @@
+package dius.test.bigreidy;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Compact binary snapshots of games, so a restart only has to restore the games that are live rather than
+ * replaying a whole day's {@link RollLog}. {@link #save(GameRegistry, Path, RollLog)} snapshots each game and moves
+ * it onto a new log in the same step, so every roll is in the snapshot or the new log. On restart {@link #load}
+ * the snapshot then {@link RollLog#rebuild} the new log on top.
+ * <p>
+ * A snapshot is written to a temporary file next to it and then moved over it, so a crash mid-save leaves the
+ * previous snapshot as it was.
+ * <p>
+ * Each game is the game id as an int, then a byte each for the number of rolls, the frame index and the flags
+ * (match ended, in the last frame), then a byte per roll. At most {@link #maxGameBytes} per game.
+ * Restoring a game replays its rolls, at most 21, then checks the frame index and flags match, so a corrupt
+ * snapshot is caught rather than silently giving the wrong score.
+ */
+public final class GameSnapshot {
+
+    public static final int maxGameBytes = Integer.BYTES + 3 + BowlingGame.maxRolls;
+    private static final int magic = 0x424f574c;
+    private static final int headerBytes = 2 * Integer.BYTES;
+    private static final int matchEndedFlag = 1;
+    private static final int lastFrameFlag = 2;
+
+    private GameSnapshot() {
+    }
+
+    /**
+     * Writes a single game
+     *
+     * @param buffer where to write, needs {@link #maxGameBytes} remaining
+     * @param gameId lane or game id
+     * @param game   game to snapshot
+     */
+    public static void write(ByteBuffer buffer, int gameId, BowlingGame game) {
+        int rollCount = game.getRollCount();
+        int flags = (game.isMatchEnded() ? matchEndedFlag : 0)
+                | (game.getFrameIndex() == BowlingGame.maxFrames - 1 ? lastFrameFlag : 0);
+        buffer.putInt(gameId).put((byte) rollCount).put((byte) game.getFrameIndex()).put((byte) flags);
+        for (int i = 0; i < rollCount; i++) {
+            buffer.put((byte) game.getRoll(i));
+        }
+    }
+
+    /**
+     * Reads a single game into a registry
+     *
+     * @param buffer   where to read from, positioned at a game written by {@link #write}
+     * @param registry registry to put the game in, replacing any game under the same id
+     * @throws IllegalArgumentException the snapshot is not a valid game
+     */
+    public static void read(ByteBuffer buffer, GameRegistry registry) throws IllegalArgumentException {
+        int gameId = buffer.getInt();
+        registry.applyGame(gameId, read(buffer));
+    }
+
+    private static BowlingGame read(ByteBuffer buffer) {
+        int rollCount = buffer.get();
+        int frameIdx = buffer.get();
+        int flags = buffer.get();
+        if (rollCount < 0 || rollCount > BowlingGame.maxRolls) {
+            throw new IllegalArgumentException("Snapshot has an impossible number of rolls");
+        }
+        BowlingGame game = new BowlingGame();
+        try {
+            for (int i = 0; i < rollCount; i++) {
+                game.roll(buffer.get());
+            }
+        } catch (IllegalStateException ex) {
+            throw new IllegalArgumentException("Snapshot does not match its rolls", ex);
+        }
+        boolean matchEnded = (flags & matchEndedFlag) != 0;
+        boolean lastFrame = (flags & lastFrameFlag) != 0;
+        if (game.getFrameIndex() != frameIdx || game.isMatchEnded() != matchEnded
+                || (frameIdx == BowlingGame.maxFrames - 1) != lastFrame) {
+            throw new IllegalArgumentException("Snapshot does not match its rolls");
+        }
+        return game;
+    }
+
+    /**
+     * Snapshots every game in a registry to a file, replacing the file
+     *
+     * @param registry games to snapshot
+     * @param path     file to write
+     * @return number of games written
+     * @throws IOException the file could not be written
+     */
+    public static int save(GameRegistry registry, Path path) throws IOException {
+        Writer writer = new Writer(registry.size());
+        registry.forEachGame(writer);
+        writer.writeTo(path);
+        return writer.count;
+    }
+
+    /**
+     * Snapshots every game in a registry to a file, replacing the file, and moves the registry's logging over
+     * to a new log game by game as it goes.
+     * Each game's records from before it was snapshotted stay in the old log, and everything after goes to the
+     * new log, so nothing is lost or applied twice by loading this snapshot and rebuilding the new log.
+     * Keep the old log until this returns: if it fails, the previous snapshot, the old log and then the new log
+     * rebuild the same games.
+     *
+     * @param registry games to snapshot
+     * @param path     file to write
+     * @param newLog   log for the registry to append to from now on
+     * @return the log the registry was appending to before, which gets nothing more
+     * @throws IOException the file could not be written
+     */
+    public static RollLog save(GameRegistry registry, Path path, RollLog newLog) throws IOException {
+        Writer writer = new Writer(registry.size());
+        RollLog oldLog = registry.switchLog(writer, newLog);
+        writer.writeTo(path);
+        return oldLog;
+    }
+
+    /**
+     * Restores every game in a snapshot file into a registry
+     *
+     * @param path     file written by {@link #save}
+     * @param registry registry to put the games in, replacing any games under the same ids
+     * @return number of games restored
+     * @throws IOException              the file could not be read
+     * @throws IllegalArgumentException the file is not a valid snapshot
+     */
+    public static int load(Path path, GameRegistry registry) throws IOException, IllegalArgumentException {
+        ByteBuffer buffer;
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, 0, file.size());
+        }
+        if (buffer.remaining() < headerBytes || buffer.getInt() != magic) {
+            throw new IllegalArgumentException("Not a game snapshot");
+        }
+        int count = buffer.getInt();
+        try {
+            for (int i = 0; i < count; i++) {
+                read(buffer, registry);
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IllegalArgumentException("Snapshot is truncated", ex);
+        }
+        return count;
+    }
+
+    /**
+     * Writes games into a buffer after the header, growing it as needed
+     */
+    private static final class Writer implements ObjIntConsumer<BowlingGame> {
+
+        private ByteBuffer buffer;
+        private int count = 0;
+
+        private Writer(int expectedGames) {
+            buffer = ByteBuffer.allocate(headerBytes + (expectedGames + 1) * maxGameBytes);
+            buffer.position(headerBytes);
+        }
+
+        @Override
+        public void accept(BowlingGame game, int gameId) {
+            if (buffer.remaining() < maxGameBytes) {
+                buffer.flip();
+                buffer = ByteBuffer.allocate(buffer.capacity() * 2).put(buffer);
+            }
+            write(buffer, gameId, game);
+            count++;
+        }
+
+        /**
+         * Writes the header and games to a temporary file, forces it to disk, then moves it over the path
+         */
+        private void writeTo(Path path) throws IOException {
+            buffer.putInt(0, magic).putInt(Integer.BYTES, count).flip();
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel file = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+                file.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,479 @@
+package dius.test.bigreidy;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Feeds roll events from lane controllers into a {@link GameRegistry}, with one lightweight task per lane.
+ * Each lane has a bounded queue, so events for a game are applied in the order they arrived, and
+ * a lane that falls behind pushes back on whoever is sending to it.
+ * A lane applies whatever has queued up since it last ran, then publishes the score once for the whole batch.
+ * Once its game has ended or been removed, or it has sat idle for a while, a lane retires and its task ends;
+ * the next event for that id starts a new lane.
+ * <p>
+ * Tasks run on virtual threads when the JVM has them (Java 21+), otherwise on a cached thread pool.
+ */
+public class LaneIngestion implements AutoCloseable {
+
+    /**
+     * Size of a roll event on the wire: the game id as an int, then the pins as a byte
+     */
+    public static final int eventBytes = Integer.BYTES + Byte.BYTES;
+    /**
+     * queued in place of a roll to tell a lane to stop, can never be a valid number of pins
+     */
+    private static final int stopLane = Integer.MIN_VALUE;
+    /**
+     * how long a lane waits for an event before retiring, a new one is started if more events come
+     */
+    private static final long idleMillis = 30_000;
+    /**
+     * how long a lane whose game is over waits before trying to retire again, if a sender was in the way
+     */
+    private static final long retryMillis = 1;
+
+    /**
+     * Receives scores once a lane has applied a batch of rolls.
+     * Called from the lane's task, so a slow publisher slows that lane down, which then pushes back on its sender.
+     */
+    public interface ScorePublisher {
+        void publish(int gameId, int score, boolean matchEnded);
+    }
+
+    private final GameRegistry registry;
+    private final ScorePublisher publisher;
+    private final ExecutorService executor;
+    private final int laneCapacity;
+    private final ConcurrentMap<Integer, Lane> lanes = new ConcurrentHashMap<>();
+    /**
+     * sockets and streams being read from, closed along with ingestion so their tasks stop
+     */
+    private final Set<Closeable> sources = ConcurrentHashMap.newKeySet();
+    private final AtomicLong rejectedRolls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    /**
+     * held shared to start a lane and exclusively to close, so every lane is started before close stops them
+     */
+    private final ReadWriteLock closing = new ReentrantReadWriteLock();
+    private volatile boolean closed = false;
+
+    /**
+     * @param registry     games to apply the rolls to
+     * @param publisher    receives scores after each batch of rolls
+     * @param laneCapacity events that can be waiting on a lane before senders are made to wait
+     */
+    public LaneIngestion(GameRegistry registry, ScorePublisher publisher, int laneCapacity) {
+        this(registry, publisher, laneCapacity, newLaneExecutor());
+    }
+
+    /**
+     * @param registry     games to apply the rolls to
+     * @param publisher    receives scores after each batch of rolls
+     * @param laneCapacity events that can be waiting on a lane before senders are made to wait
+     * @param executor     runs a long lived task per lane and per connection, it is shut down on close
+     */
+    public LaneIngestion(GameRegistry registry, ScorePublisher publisher, int laneCapacity, ExecutorService executor) {
+        if (laneCapacity < 1) {
+            throw new IllegalArgumentException("Lanes must be able to queue at least one event");
+        }
+        this.registry = registry;
+        this.publisher = publisher;
+        this.laneCapacity = laneCapacity;
+        this.executor = executor;
+    }
+
+    /**
+     * A virtual thread per task where the JVM supports it, falling back to a cached pool of daemon threads
+     *
+     * @return executor for lane tasks
+     */
+    public static ExecutorService newLaneExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "lane-ingestion");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Queues a roll for a game, waiting while its lane is full
+     *
+     * @param gameId   lane or game id
+     * @param noOfPins knocked down in this bowl
+     * @throws InterruptedException  interrupted while waiting for room
+     * @throws IllegalStateException ingestion has been closed
+     */
+    public void submit(int gameId, int noOfPins) throws InterruptedException, IllegalStateException {
+        for (;;) {
+            Lane lane = lane(gameId);
+            lane.sending.readLock().lock();
+            try {
+                if (!lane.retired) {
+                    lane.events.put(noOfPins);
+                    return;
+                }
+            } finally {
+                lane.sending.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Queues a roll for a game, if its lane has room
+     *
+     * @param gameId   lane or game id
+     * @param noOfPins knocked down in this bowl
+     * @return false if the lane is full, and the roll was not queued
+     * @throws IllegalStateException ingestion has been closed
+     */
+    public boolean offer(int gameId, int noOfPins) throws IllegalStateException {
+        for (;;) {
+            Lane lane = lane(gameId);
+            lane.sending.readLock().lock();
+            try {
+                if (!lane.retired) return lane.events.offer(noOfPins);
+            } finally {
+                lane.sending.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Reads roll events from a stream until it ends, on its own task.
+     * Each event is {@link #eventBytes} long, see {@link #submit(int, int)}, which also makes the reader
+     * wait (and so stop reading from the socket) while a lane is full.
+     *
+     * @param in stream of events, e.g. from a lane controller's socket. Closed once it ends, or on close.
+     * @return completes once the stream has ended
+     */
+    public Future<?> ingest(InputStream in) {
+        sources.add(in);
+        return executor.submit(() -> {
+            try (DataInputStream events = new DataInputStream(in)) {
+                while (!closed) {
+                    int gameId;
+                    try {
+                        gameId = events.readInt();
+                    } catch (EOFException ex) {
+                        return null;
+                    }
+                    submit(gameId, events.readByte());
+                }
+            } catch (IOException | IllegalStateException ex) {
+                if (!closed) throw ex;
+            } finally {
+                sources.remove(in);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Accepts lane controller connections, reading each one with {@link #ingest(InputStream)}
+     *
+     * @param serverSocket socket to accept connections on, closed when ingestion is closed
+     * @return completes once the server socket is closed and its connections have ended, failing with an
+     * {@link IOException} if any connection failed, the first as its cause and the rest suppressed
+     */
+    public Future<?> serve(ServerSocket serverSocket) {
+        sources.add(serverSocket);
+        return executor.submit(() -> {
+            List<Future<?>> connections = new ArrayList<>();
+            IOException failure = null;
+            try (ServerSocket server = serverSocket) {
+                while (!closed) {
+                    Socket socket = server.accept();
+                    connections.add(ingest(socket.getInputStream()));
+                    failure = checkConnections(connections, failure, false);
+                }
+            } catch (IOException ex) {
+                if (!closed) throw ex;
+            }
+            failure = checkConnections(connections, failure, true);
+            if (failure != null) throw failure;
+            return null;
+        });
+    }
+
+    /**
+     * Drops connections that have ended, keeping their failures
+     *
+     * @param connections tasks reading connections
+     * @param failure     failures so far, or null
+     * @param wait        wait for every connection to end, rather than only looking at those that have
+     * @return failures so far, or null if none have failed
+     */
+    private static IOException checkConnections(List<Future<?>> connections, IOException failure, boolean wait)
+            throws InterruptedException {
+        for (Iterator<Future<?>> it = connections.iterator(); it.hasNext(); ) {
+            Future<?> connection = it.next();
+            if (!wait && !connection.isDone()) continue;
+            it.remove();
+            try {
+                connection.get();
+            } catch (ExecutionException ex) {
+                if (failure == null) {
+                    failure = new IOException("Lane controller connection failed", ex.getCause());
+                } else {
+                    failure.addSuppressed(ex.getCause());
+                }
+            } catch (CancellationException ignored) {
+                // stopped by shutdownNow
+            }
+        }
+        return failure;
+    }
+
+    /**
+     * @return rolls that could not be applied, e.g. for a game that doesn't exist or too many pins
+     */
+    public long getRejectedRolls() {
+        return rejectedRolls.get();
+    }
+
+    /**
+     * @return rolls and score publishes that failed unexpectedly, e.g. the roll log could not be written or the
+     * publisher threw, plus any rolls dropped by a lane whose task died
+     */
+    public long getFailures() {
+        return failures.get();
+    }
+
+    /**
+     * @return lanes with a task running
+     */
+    public int getActiveLanes() {
+        return lanes.size();
+    }
+
+    /**
+     * Applies everything already queued, then stops all the lane tasks.
+     * If interrupted while waiting for them, they are stopped straight away and the interrupt is kept.
+     */
+    @Override
+    public void close() {
+        closing.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closing.writeLock().unlock();
+        }
+        for (Closeable source : sources) {
+            try {
+                source.close();
+            } catch (IOException ignored) {
+                // stopping anyway
+            }
+        }
+        try {
+            for (Lane lane : lanes.values()) {
+                lane.stop();
+            }
+            executor.shutdown();
+            if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException ex) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Lane lane(int gameId) {
+        if (closed) {
+            throw new IllegalStateException("Ingestion has been closed");
+        }
+        Lane lane = lanes.get(gameId);
+        if (lane != null) return lane;
+        closing.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Ingestion has been closed");
+            }
+            return lanes.computeIfAbsent(gameId, id -> {
+                Lane newLane = new Lane(id);
+                executor.execute(newLane);
+                return newLane;
+            });
+        } finally {
+            closing.readLock().unlock();
+        }
+    }
+
+    /**
+     * The events for a single game, and the task that applies them.
+     * Senders hold the sending lock shared while they queue an event, and the lane only retires if it can take
+     * it exclusively with nothing queued, so an event is never left on a lane that has stopped.
+     */
+    private final class Lane implements Runnable {
+
+        private final int gameId;
+        private final BlockingQueue<Integer> events = new ArrayBlockingQueue<>(laneCapacity);
+        private final ReadWriteLock sending = new ReentrantReadWriteLock();
+        /**
+         * takes no more events, set holding the sending lock exclusively
+         */
+        private boolean retired = false;
+
+        private Lane(int gameId) {
+            this.gameId = gameId;
+        }
+
+        @Override
+        public void run() {
+            List<Integer> batch = new ArrayList<>(laneCapacity);
+            boolean over = false;
+            try {
+                while (true) {
+                    Integer event = events.poll(over ? retryMillis : idleMillis, TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        if (retire()) return;
+                        continue;
+                    }
+                    batch.add(event);
+                    events.drainTo(batch);
+                    boolean applied = false;
+                    for (int noOfPins : batch) {
+                        if (noOfPins == stopLane) {
+                            if (applied) publish();
+                            return;
+                        }
+                        try {
+                            if (registry.tryRoll(gameId, noOfPins).isAccepted()) {
+                                applied = true;
+                            } else {
+                                rejectedRolls.incrementAndGet();
+                            }
+                        } catch (IllegalArgumentException ex) {
+                            // the game has been removed from the registry
+                            rejectedRolls.incrementAndGet();
+                        } catch (RuntimeException ex) {
+                            // e.g. the roll log could not be written, carry on with the next roll
+                            failures.incrementAndGet();
+                        }
+                    }
+                    batch.clear();
+                    if (applied) publish();
+                    over = isOver();
+                    if (over && retire()) return;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                leave();
+            }
+        }
+
+        /**
+         * Makes sure the lane is out of use once its task has ended, however it ended, so senders start a new
+         * lane rather than queuing where nothing reads. Anything still queued is dropped, which also makes room
+         * for a sender waiting on a full lane, so it lets go of the sending lock.
+         */
+        private void leave() {
+            lanes.remove(gameId, this);
+            while (!sending.writeLock().tryLock()) {
+                drop();
+                Thread.yield();
+            }
+            try {
+                retired = true;
+                drop();
+            } finally {
+                sending.writeLock().unlock();
+            }
+        }
+
+        private void drop() {
+            for (Integer event; (event = events.poll()) != null; ) {
+                if (event != stopLane) failures.incrementAndGet();
+            }
+        }
+
+        /**
+         * Takes the lane out of use if nothing is queued and no one is part way through sending to it.
+         * Anyone sending after this finds it retired and starts a new lane.
+         *
+         * @return whether the lane retired, and its task should end
+         */
+        private boolean retire() {
+            if (!sending.writeLock().tryLock()) return false;
+            try {
+                if (!events.isEmpty()) return false;
+                retired = true;
+                lanes.remove(gameId, this);
+                return true;
+            } finally {
+                sending.writeLock().unlock();
+            }
+        }
+
+        /**
+         * Queues the stop marker behind everything already sent, unless the lane has retired
+         */
+        private void stop() throws InterruptedException {
+            sending.writeLock().lock();
+            try {
+                if (retired) return;
+                retired = true;
+                events.put(stopLane);
+            } finally {
+                sending.writeLock().unlock();
+            }
+        }
+
+        /**
+         * @return whether the game has ended or been removed, so no more rolls can apply to it
+         */
+        private boolean isOver() {
+            try {
+                return registry.isMatchEnded(gameId);
+            } catch (IllegalArgumentException ex) {
+                return true;
+            }
+        }
+
+        private void publish() {
+            int score;
+            boolean matchEnded;
+            try {
+                score = registry.score(gameId);
+                matchEnded = registry.isMatchEnded(gameId);
+            } catch (IllegalArgumentException ex) {
+                // the game was removed from the registry since the rolls were applied, nothing to publish
+                return;
+            }
+            try {
+                publisher.publish(gameId, score, matchEnded);
+            } catch (RuntimeException ex) {
+                // the next batch publishes again
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package dius.test.bigreidy;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Live ranking of players by score, updated a score at a time rather than re-sorting everyone.
+ * Players are kept in a bucket per possible score, with a Fenwick tree of the bucket sizes, so
+ * updating a score and finding a rank are O(log maxScore), and top-K is a walk down the buckets.
+ * <p>
+ * Players are identified by an index below the capacity, e.g. a lane or game id.
+ * Displays reading the leaderboard share a read lock, so they only wait on updates, not on each other.
+ * Players with the same score are in no particular order.
+ */
+public class Leaderboard {
+
+    private static final int absent = -1;
+
+    private final int maxScore;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final int[] scores;
+    /**
+     * each bucket is a doubly linked list threaded through these, by player index
+     */
+    private final int[] next;
+    private final int[] previous;
+    private final int[] bucketHeads;
+    /**
+     * Fenwick tree over the bucket sizes, 1-based, indexed by score + 1
+     */
+    private final int[] bucketCounts;
+    private int size = 0;
+
+    /**
+     * A leaderboard for single game scores
+     *
+     * @param capacity players can be numbered from 0 up to this
+     */
+    public Leaderboard(int capacity) {
+        this(capacity, BowlingGame.maxScore);
+    }
+
+    /**
+     * @param capacity players can be numbered from 0 up to this
+     * @param maxScore highest score a player can have, e.g. a perfect series
+     */
+    public Leaderboard(int capacity, int maxScore) {
+        this.maxScore = maxScore;
+        scores = new int[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        bucketHeads = new int[maxScore + 1];
+        bucketCounts = new int[maxScore + 2];
+        Arrays.fill(scores, absent);
+        Arrays.fill(bucketHeads, absent);
+    }
+
+    /**
+     * Sets a player's score, adding them if they are not on the leaderboard yet
+     *
+     * @param player index of the player
+     * @param score  their score now
+     * @throws IllegalArgumentException the score is outside 0 to maxScore
+     */
+    public void update(int player, int score) throws IllegalArgumentException {
+        if (score < 0 || score > maxScore) {
+            throw new IllegalArgumentException("Score must be between 0 and " + maxScore);
+        }
+        lock.writeLock().lock();
+        try {
+            if (scores[player] == score) return;
+            if (scores[player] != absent) {
+                unlink(player);
+            } else {
+                size++;
+            }
+            link(player, score);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Takes a player off the leaderboard
+     *
+     * @param player index of the player
+     */
+    public void remove(int player) {
+        lock.writeLock().lock();
+        try {
+            if (scores[player] == absent) return;
+            unlink(player);
+            scores[player] = absent;
+            size--;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return players can be numbered from 0 up to this
+     */
+    public int capacity() {
+        return scores.length;
+    }
+
+    /**
+     * @return number of players on the leaderboard
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param player index of the player
+     * @return their score, or -1 if they are not on the leaderboard
+     */
+    public int score(int player) {
+        lock.readLock().lock();
+        try {
+            return scores[player];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rank of a player, 1 for the best. Players on the same score share a rank.
+     *
+     * @param player index of the player
+     * @return 1 plus the number of players with a higher score, or -1 if they are not on the leaderboard
+     */
+    public int rank(int player) {
+        lock.readLock().lock();
+        try {
+            int score = scores[player];
+            if (score == absent) return absent;
+            return 1 + size - countUpTo(score);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The best players, highest score first
+     *
+     * @param k   how many players to find
+     * @param out where to write their indexes, needs room for k
+     * @return how many were written, which is fewer than k if there are fewer players
+     */
+    public int top(int k, int[] out) {
+        lock.readLock().lock();
+        try {
+            int found = 0;
+            for (int score = maxScore; score >= 0 && found < k; score--) {
+                for (int player = bucketHeads[score]; player != absent && found < k; player = next[player]) {
+                    out[found++] = player;
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of players whose score is within some pins of a score
+     *
+     * @param score score to count around
+     * @param pins  how far either side to count, inclusive
+     * @return players scoring from score - pins to score + pins
+     */
+    public int countWithin(int score, int pins) {
+        lock.readLock().lock();
+        try {
+            int high = Math.min(maxScore, score + pins);
+            int low = Math.max(0, score - pins);
+            if (low > high) return 0;
+            return countUpTo(high) - (low == 0 ? 0 : countUpTo(low - 1));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Players whose score is within some pins of a score, highest score first
+     *
+     * @param score score to look around
+     * @param pins  how far either side to look, inclusive
+     * @param out   where to write their indexes, stops once it is full
+     * @return how many were written
+     */
+    public int within(int score, int pins, int[] out) {
+        lock.readLock().lock();
+        try {
+            int found = 0;
+            int low = Math.max(0, score - pins);
+            for (int s = Math.min(maxScore, score + pins); s >= low && found < out.length; s--) {
+                for (int player = bucketHeads[s]; player != absent && found < out.length; player = next[player]) {
+                    out[found++] = player;
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void link(int player, int score) {
+        scores[player] = score;
+        int head = bucketHeads[score];
+        next[player] = head;
+        previous[player] = absent;
+        if (head != absent) previous[head] = player;
+        bucketHeads[score] = player;
+        addToCount(score, 1);
+    }
+
+    private void unlink(int player) {
+        int score = scores[player];
+        if (previous[player] != absent) {
+            next[previous[player]] = next[player];
+        } else {
+            bucketHeads[score] = next[player];
+        }
+        if (next[player] != absent) previous[next[player]] = previous[player];
+        addToCount(score, -1);
+    }
+
+    private void addToCount(int score, int delta) {
+        for (int i = score + 1; i < bucketCounts.length; i += i & -i) {
+            bucketCounts[i] += delta;
+        }
+    }
+
+    /**
+     * @return number of players scoring score or less
+     */
+    private int countUpTo(int score) {
+        int count = 0;
+        for (int i = score + 1; i > 0; i -= i & -i) {
+            count += bucketCounts[i];
+        }
+        return count;
+    }
+}
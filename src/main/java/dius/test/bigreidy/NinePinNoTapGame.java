@@ -0,0 +1,38 @@
+package dius.test.bigreidy;
+
+/**
+ * A game of nine-pin no-tap: ten-pin, except knocking down 9 pins with a ball at a full rack is a strike.
+ * The 9 is recorded as the strike it counts as, then everything else is {@link BowlingGame}'s rules.
+ */
+public final class NinePinNoTapGame implements Game {
+
+    private static final int noTapPins = Frame.maxPins - 1;
+
+    private final BowlingGame game = new BowlingGame();
+
+    @Override
+    public void roll(int noOfPins) throws IllegalStateException, IllegalArgumentException {
+        tryRoll(noOfPins).throwIfRejected();
+    }
+
+    @Override
+    public RollStatus tryRoll(int noOfPins) {
+        if (noOfPins == noTapPins && game.isNextBowlAtFullRack()) noOfPins = Frame.maxPins;
+        return game.tryRoll(noOfPins);
+    }
+
+    @Override
+    public int score() {
+        return game.score();
+    }
+
+    @Override
+    public boolean isMatchEnded() {
+        return game.isMatchEnded();
+    }
+
+    @Override
+    public int getFrameIndex() {
+        return game.getFrameIndex();
+    }
+}
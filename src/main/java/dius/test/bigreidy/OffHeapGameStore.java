@@ -0,0 +1,271 @@
+package dius.test.bigreidy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Many games kept outside the Java heap, for holding a whole season of games without a large heap.
+ * Each game is a fixed width slot of {@link #slotBytes} in one direct or memory-mapped buffer: its rolls,
+ * where it is up to in the current frame, its open bonuses and its running score.
+ * An all zero slot is a game that hasn't started, so a new store or a new file needs no setup.
+ * <p>
+ * Rolls go through the same rules as {@link BowlingGame#roll(int)}, using {@link Frame}'s packed form.
+ * A {@link GameView} gives a single game the same contract as {@link BowlingGame}, and can be moved from game
+ * to game so reading millions of them creates no objects. Like {@link BowlingGame}, not safe to use from
+ * several threads at once.
+ */
+public class OffHeapGameStore {
+
+    public static final int slotBytes = 32;
+    /**
+     * largest number of games a single buffer can hold
+     */
+    public static final int maxCapacity = Integer.MAX_VALUE / slotBytes;
+
+    /**
+     * offsets of each field within a slot, the rolls come first
+     */
+    private static final int rollCountOffset = BowlingGame.maxRolls;
+    private static final int frameOffset = rollCountOffset + 1;
+    private static final int frameRollsOffset = frameOffset + 1;
+    private static final int openBonusesOffset = frameRollsOffset + 1;
+    private static final int packedFrameOffset = openBonusesOffset + 1;
+    private static final int scoreOffset = packedFrameOffset + Short.BYTES;
+
+    private final ByteBuffer slots;
+    private final int capacity;
+
+    /**
+     * Creates a store in direct memory
+     *
+     * @param capacity number of games it can hold
+     */
+    public OffHeapGameStore(int capacity) {
+        this(ByteBuffer.allocateDirect(checkCapacity(capacity) * slotBytes), capacity);
+    }
+
+    private OffHeapGameStore(ByteBuffer slots, int capacity) {
+        this.slots = slots;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Opens a store backed by a memory-mapped file, creating the file if needed.
+     * Games already in the file carry on from where they were, the operating system writes changes back.
+     *
+     * @param path     file to keep the games in
+     * @param capacity number of games it can hold
+     * @return the store
+     * @throws IOException the file could not be opened or mapped
+     */
+    public static OffHeapGameStore map(Path path, int capacity) throws IOException {
+        checkCapacity(capacity);
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            MappedByteBuffer slots = file.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * slotBytes);
+            return new OffHeapGameStore(slots, capacity);
+        }
+    }
+
+    private static int checkCapacity(int capacity) {
+        if (capacity < 1 || capacity > maxCapacity) {
+            throw new IllegalArgumentException("Capacity must be from 1 to " + maxCapacity + " games");
+        }
+        return capacity;
+    }
+
+    /**
+     * @return number of games the store can hold
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Writes any changes to a memory-mapped store through to disk, does nothing for a store in direct memory
+     */
+    public void force() {
+        if (slots instanceof MappedByteBuffer) ((MappedByteBuffer) slots).force();
+    }
+
+    /**
+     * Clears a game's slot, so it starts again from the first frame
+     *
+     * @param game index of the game
+     */
+    public void reset(int game) {
+        int slot = slot(game);
+        for (int i = 0; i < slotBytes; i += Long.BYTES) {
+            slots.putLong(slot + i, 0);
+        }
+    }
+
+    /**
+     * records the bowl for a game, see {@link BowlingGame#tryRoll(int)}
+     *
+     * @param game     index of the game
+     * @param noOfPins knocked down in this bowl
+     * @return {@link RollStatus#ACCEPTED}, or why the bowl was not recorded, the game is left as it was
+     */
+    public RollStatus tryRoll(int game, int noOfPins) {
+        int slot = slot(game);
+        int frame = slots.get(slot + frameOffset);
+        if (frame >= BowlingGame.maxFrames) return RollStatus.MATCH_ENDED;
+        boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+        int bowls = slots.get(slot + frameRollsOffset);
+        int packed = slots.getShort(slot + packedFrameOffset);
+        RollStatus status = Frame.checkBowl(lastFrame, packed, bowls, noOfPins);
+        if (status != RollStatus.ACCEPTED) return status;
+
+        int rollCount = slots.get(slot + rollCountOffset);
+        int open = slots.get(slot + openBonusesOffset);
+        int score = slots.getShort(slot + scoreOffset) + BowlingGame.rollValue(open, noOfPins);
+        open = BowlingGame.closeBonuses(open);
+        packed = Frame.withRoll(packed, bowls++, noOfPins);
+        if (!Frame.canBowlAgain(lastFrame, packed, bowls)) {
+            if (!lastFrame) open = BowlingGame.openBonus(open, packed, bowls);
+            frame++;
+            packed = 0;
+            bowls = 0;
+        }
+        slots.put(slot + rollCount, (byte) noOfPins);
+        slots.put(slot + rollCountOffset, (byte) (rollCount + 1));
+        slots.put(slot + frameOffset, (byte) frame);
+        slots.put(slot + frameRollsOffset, (byte) bowls);
+        slots.put(slot + openBonusesOffset, (byte) open);
+        slots.putShort(slot + packedFrameOffset, (short) packed);
+        slots.putShort(slot + scoreOffset, (short) score);
+        return RollStatus.ACCEPTED;
+    }
+
+    /**
+     * records the bowl for a game, see {@link BowlingGame#roll(int)}
+     *
+     * @param game     index of the game
+     * @param noOfPins knocked down in this bowl
+     * @throws IllegalStateException    the match has ended
+     * @throws IllegalArgumentException the number of pins is not possible
+     */
+    public void roll(int game, int noOfPins) throws IllegalStateException, IllegalArgumentException {
+        tryRoll(game, noOfPins).throwIfRejected();
+    }
+
+    /**
+     * @param game index of the game
+     * @return total amount of points scored so far
+     */
+    public int score(int game) {
+        return slots.getShort(slot(game) + scoreOffset);
+    }
+
+    /**
+     * @param game index of the game
+     * @return has the matched ended
+     */
+    public boolean isMatchEnded(int game) {
+        return getFrameIndex(game) >= BowlingGame.maxFrames;
+    }
+
+    /**
+     * @param game index of the game
+     * @return index of the frame the next bowl will be in, or {@link BowlingGame#maxFrames} once the match has ended
+     */
+    public int getFrameIndex(int game) {
+        return slots.get(slot(game) + frameOffset);
+    }
+
+    /**
+     * @param game index of the game
+     * @return number of bowls taken so far in that game
+     */
+    public int getRollCount(int game) {
+        return slots.get(slot(game) + rollCountOffset);
+    }
+
+    /**
+     * @param game      index of the game
+     * @param rollIndex bowl within the game, starting at 0
+     * @return pins knocked down on that bowl
+     * @throws IndexOutOfBoundsException that bowl has not happened yet
+     */
+    public int getRoll(int game, int rollIndex) throws IndexOutOfBoundsException {
+        int slot = slot(game);
+        if (rollIndex < 0 || rollIndex >= slots.get(slot + rollCountOffset)) {
+            throw new IndexOutOfBoundsException("No roll " + rollIndex + " in game " + game);
+        }
+        return slots.get(slot + rollIndex);
+    }
+
+    /**
+     * @return a view of the first game, move it with {@link GameView#moveTo(int)}
+     */
+    public GameView view() {
+        return new GameView();
+    }
+
+    private int slot(int game) {
+        if (game < 0 || game >= capacity) {
+            throw new IndexOutOfBoundsException("No game " + game + " in this store");
+        }
+        return game * slotBytes;
+    }
+
+    /**
+     * One game in the store, with the same {@link Game} contract as {@link BowlingGame}.
+     * Holds nothing but the game's index, so a single view can be moved over every game in turn.
+     */
+    public final class GameView implements Game {
+
+        private int game;
+
+        private GameView() {
+        }
+
+        /**
+         * @param game index of the game to look at from now on
+         * @return this view
+         * @throws IndexOutOfBoundsException there is no such game in the store
+         */
+        public GameView moveTo(int game) throws IndexOutOfBoundsException {
+            slot(game);
+            this.game = game;
+            return this;
+        }
+
+        /**
+         * @return index of the game being looked at
+         */
+        public int getGame() {
+            return game;
+        }
+
+        @Override
+        public void roll(int noOfPins) throws IllegalStateException, IllegalArgumentException {
+            OffHeapGameStore.this.roll(game, noOfPins);
+        }
+
+        @Override
+        public RollStatus tryRoll(int noOfPins) {
+            return OffHeapGameStore.this.tryRoll(game, noOfPins);
+        }
+
+        @Override
+        public int score() {
+            return OffHeapGameStore.this.score(game);
+        }
+
+        @Override
+        public boolean isMatchEnded() {
+            return OffHeapGameStore.this.isMatchEnded(game);
+        }
+
+        @Override
+        public int getFrameIndex() {
+            return OffHeapGameStore.this.getFrameIndex(game);
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package dius.test.bigreidy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Append-only binary log of rolls, so games survive a restart.
+ * Each record is {@link #recordBytes} long: the game id as an int, the frame as a byte and the pins as a byte.
+ * A pins value of {@link #gameStarted} marks a new game starting under that id, and {@link #gameRemoved} marks
+ * the game under that id being removed.
+ * <p>
+ * Appends go into a buffer, and {@link #commit()} writes and forces them to disk. Threads that commit at the
+ * same time share a single force, so a busy centre pays for one disk sync per group rather than per roll.
+ * Replaying memory-maps the file and hands each record to a {@link RollVisitor} without creating any objects.
+ */
+public class RollLog implements AutoCloseable {
+
+    public static final int recordBytes = Integer.BYTES + 2 * Byte.BYTES;
+    /**
+     * pins value of a record that starts a new game
+     */
+    public static final int gameStarted = -1;
+    /**
+     * pins value of a record that removes a game
+     */
+    public static final int gameRemoved = -2;
+    private static final int bufferRecords = 4096;
+
+    /**
+     * Receives each record of the log, in the order they were appended
+     */
+    public interface RollVisitor {
+        /**
+         * @param gameId lane or game id
+         * @param frame  frame the roll was in
+         * @param pins   knocked down in the roll, {@link #gameStarted} or {@link #gameRemoved}
+         */
+        void onRoll(int gameId, int frame, int pins);
+    }
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(bufferRecords * recordBytes);
+    private final Object commitLock = new Object();
+    /**
+     * records appended, and records known to be on disk. Guarded by this and commitLock respectively.
+     */
+    private long appended = 0;
+    private long durable = 0;
+
+    /**
+     * Opens a log for appending, creating it if needed.
+     * A partly written record at the end (from a crash mid-write) is cut off first, so new records line up.
+     *
+     * @param path file to log to
+     * @throws IOException the file could not be opened
+     */
+    public RollLog(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+    }
+
+    /**
+     * @param channel file to log to, opened for appending. Closed if the log cannot be opened.
+     * @throws IOException a partly written record at the end could not be cut off
+     */
+    RollLog(FileChannel channel) throws IOException {
+        this.channel = channel;
+        try {
+            long size = channel.size();
+            if (size % recordBytes != 0) {
+                channel.truncate(size - size % recordBytes);
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Adds a record to the log. It is not on disk until {@link #commit()} has been called.
+     *
+     * @param gameId lane or game id
+     * @param frame  frame the roll was in
+     * @param pins   knocked down in the roll, {@link #gameStarted} or {@link #gameRemoved}
+     * @throws IOException the buffer was full and could not be written out
+     */
+    public synchronized void append(int gameId, int frame, int pins) throws IOException {
+        if (buffer.remaining() < recordBytes) {
+            writeBuffer();
+        }
+        buffer.putInt(gameId).put((byte) frame).put((byte) pins);
+        appended++;
+    }
+
+    /**
+     * Makes every record appended before this call durable.
+     * If another thread's commit already covered them, this returns without touching the disk.
+     *
+     * @throws IOException the records could not be written or forced to disk
+     */
+    public void commit() throws IOException {
+        long target;
+        synchronized (this) {
+            target = appended;
+        }
+        synchronized (commitLock) {
+            if (durable >= target) return;
+            long upTo;
+            synchronized (this) {
+                writeBuffer();
+                upTo = appended;
+            }
+            channel.force(false);
+            durable = upTo;
+        }
+    }
+
+    /**
+     * Writes out the buffer. If a write fails, whatever was not written stays at the front of the buffer, ready
+     * for more appends, so the next commit carries on exactly where the failed one stopped.
+     */
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } finally {
+            buffer.compact();
+        }
+    }
+
+    /**
+     * Commits anything outstanding and closes the file
+     *
+     * @throws IOException the records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        commit();
+        channel.close();
+    }
+
+    /**
+     * Reads every record of a log by memory-mapping it.
+     * A partly written record at the end (from a crash mid-write) is ignored.
+     *
+     * @param path    log to read
+     * @param visitor receives each record
+     * @return number of records read
+     * @throws IOException the file could not be read
+     */
+    public static long replay(Path path, RollVisitor visitor) throws IOException {
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long records = file.size() / recordBytes;
+            long recordsPerWindow = Integer.MAX_VALUE / recordBytes;
+            for (long first = 0; first < records; first += recordsPerWindow) {
+                long count = Math.min(recordsPerWindow, records - first);
+                MappedByteBuffer window = file.map(FileChannel.MapMode.READ_ONLY, first * recordBytes, count * recordBytes);
+                for (int position = 0; position < count * recordBytes; position += recordBytes) {
+                    visitor.onRoll(window.getInt(position), window.get(position + Integer.BYTES),
+                            window.get(position + Integer.BYTES + 1));
+                }
+            }
+            return records;
+        }
+    }
+
+    /**
+     * Rebuilds the games of a log into a registry, as they were when the log was last committed.
+     * The rolls are not logged again, even if the registry has a log.
+     * Records that cannot be applied are skipped, see {@link #rebuild(Path, GameRegistry, ObjLongConsumer)}.
+     *
+     * @param path     log to read
+     * @param registry registry to start games and apply rolls to
+     * @return number of records read
+     * @throws IOException the file could not be read
+     */
+    public static long rebuild(Path path, GameRegistry registry) throws IOException {
+        return rebuild(path, registry, (ex, offset) -> {
+        });
+    }
+
+    /**
+     * Rebuilds the games of a log into a registry, as they were when the log was last committed.
+     * A record that cannot be applied, e.g. a roll for a game that was never started, is skipped rather than
+     * stopping the whole recovery, and handed to skipped along with its byte offset in the log.
+     *
+     * @param path     log to read
+     * @param registry registry to start games and apply rolls to
+     * @param skipped  receives why each skipped record could not be applied, and where it is
+     * @return number of records read, including any skipped
+     * @throws IOException the file could not be read
+     */
+    public static long rebuild(Path path, GameRegistry registry, ObjLongConsumer<RuntimeException> skipped)
+            throws IOException {
+        long[] offset = new long[1];
+        return replay(path, (gameId, frame, pins) -> {
+            try {
+                if (pins == gameStarted) {
+                    registry.applyStart(gameId);
+                } else if (pins == gameRemoved) {
+                    registry.applyRemove(gameId);
+                } else {
+                    registry.applyRoll(gameId, pins);
+                }
+            } catch (IllegalArgumentException | IllegalStateException ex) {
+                skipped.accept(ex, offset[0]);
+            }
+            offset[0] += recordBytes;
+        });
+    }
+}
@@ -0,0 +1,256 @@
+package dius.test.bigreidy;
+
+/**
+ * Live statistics, built up one roll at a time as rolls are accepted, for each bowler and each lane.
+ * Never looks back at stored games: each bowler's current frame is tracked here with {@link Frame}'s packed
+ * rules, and every count is a slot in a primitive array.
+ * <p>
+ * A strike chance is any ball bowled at a full rack (including the fill balls of the last frame), and a spare
+ * chance is any ball bowled at what a previous ball left standing. Only feed in rolls that were accepted.
+ * Safe to record from several threads, e.g. lane ingestion tasks. Each bowler and each lane has its own lock,
+ * so rolls on different lanes by different bowlers never wait on each other.
+ */
+public class RollStatistics {
+
+    private final Counters bowlers;
+    private final Counters lanes;
+
+    /**
+     * where each bowler is in their current game, guarded by the bowler's lock
+     */
+    private final byte[] frames;
+    private final byte[] frameRolls;
+    private final int[] packedFrames;
+
+    /**
+     * @param bowlers bowlers can be numbered from 0 up to this
+     * @param lanes   lanes can be numbered from 0 up to this
+     */
+    public RollStatistics(int bowlers, int lanes) {
+        this.bowlers = new Counters(bowlers);
+        this.lanes = new Counters(lanes);
+        frames = new byte[bowlers];
+        frameRolls = new byte[bowlers];
+        packedFrames = new int[bowlers];
+    }
+
+    /**
+     * @return statistics for each bowler
+     */
+    public Counters bowlers() {
+        return bowlers;
+    }
+
+    /**
+     * @return statistics for each lane
+     */
+    public Counters lanes() {
+        return lanes;
+    }
+
+    /**
+     * Counts a roll that was accepted into a bowler's game.
+     * Once a bowler's game is over, their next roll starts a new one.
+     *
+     * @param bowler   index of the bowler
+     * @param lane     index of the lane they bowled on
+     * @param noOfPins knocked down in this bowl
+     * @throws IllegalArgumentException the number of pins is outside 0 to 10
+     */
+    public void record(int bowler, int lane, int noOfPins) throws IllegalArgumentException {
+        if (noOfPins < 0 || noOfPins > Frame.maxPins) {
+            throw new IllegalArgumentException("Pins must be between 0 and " + Frame.maxPins);
+        }
+        Object laneLock = lanes.locks[lane];
+        int counted;
+        synchronized (bowlers.locks[bowler]) {
+            counted = advance(bowler, noOfPins);
+            bowlers.add(bowler, counted);
+        }
+        synchronized (laneLock) {
+            lanes.add(lane, counted);
+        }
+    }
+
+    /**
+     * Abandons a bowler's game in progress, so their next roll starts a new game.
+     * Whatever was already counted for the abandoned game is kept.
+     *
+     * @param bowler index of the bowler
+     */
+    public void resetGame(int bowler) {
+        synchronized (bowlers.locks[bowler]) {
+            frames[bowler] = 0;
+            frameRolls[bowler] = 0;
+            packedFrames[bowler] = 0;
+        }
+    }
+
+    /**
+     * Moves a bowler's game on by a roll, called holding the bowler's lock
+     *
+     * @return a bit for each counter the roll adds one to
+     */
+    private int advance(int bowler, int noOfPins) {
+        int frame = frames[bowler];
+        if (frame >= BowlingGame.maxFrames) frame = 0;
+        boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+        int packed = packedFrames[bowler];
+        int bowls = frameRolls[bowler];
+        int counted = 0;
+
+        if (Frame.isFullRack(lastFrame, packed, bowls)) {
+            counted |= bit(Counters.strikeChances) | bit(Counters.firstBallPins + noOfPins);
+            if (noOfPins == Frame.maxPins) counted |= bit(Counters.strikes);
+        } else {
+            counted |= bit(Counters.spareChances);
+            if (noOfPins == Frame.pinsStanding(lastFrame, packed, bowls)) counted |= bit(Counters.spares);
+        }
+
+        packed = Frame.withRoll(packed, bowls++, noOfPins);
+        if (Frame.canBowlAgain(lastFrame, packed, bowls)) {
+            packedFrames[bowler] = packed;
+            frameRolls[bowler] = (byte) bowls;
+            frames[bowler] = (byte) frame;
+            return counted;
+        }
+        counted |= bit(Counters.frames);
+        boolean strike = Frame.isStrike(packed, bowls);
+        boolean spare = !strike && Frame.isSpare(packed, bowls);
+        if (!strike && !spare) counted |= bit(Counters.openFrames);
+        if (lastFrame) {
+            counted |= bit(strike ? Counters.tenthStrikes : spare ? Counters.tenthSpares : Counters.tenthOpens);
+            if (strike && bowls == 3 && Frame.rollAt(packed, 1) == Frame.maxPins && Frame.rollAt(packed, 2) == Frame.maxPins) {
+                counted |= bit(Counters.tenthTurkeys);
+            }
+        }
+        packedFrames[bowler] = 0;
+        frameRolls[bowler] = 0;
+        frames[bowler] = (byte) (frame + 1);
+        return counted;
+    }
+
+    private static int bit(int counter) {
+        return 1 << counter;
+    }
+
+    /**
+     * The counts for every bowler, or every lane, in one flat array.
+     * Each method takes the bowler or lane index as its id.
+     */
+    public static final class Counters {
+
+        private static final int frames = 0;
+        private static final int openFrames = 1;
+        private static final int strikeChances = 2;
+        private static final int strikes = 3;
+        private static final int spareChances = 4;
+        private static final int spares = 5;
+        private static final int tenthStrikes = 6;
+        private static final int tenthSpares = 7;
+        private static final int tenthOpens = 8;
+        private static final int tenthTurkeys = 9;
+        private static final int firstBallPins = 10;
+        private static final int counterCount = firstBallPins + Frame.maxPins + 1;
+
+        private final long[] counts;
+        /**
+         * one per id, guarding that id's counts
+         */
+        private final Object[] locks;
+
+        private Counters(int size) {
+            counts = new long[size * counterCount];
+            locks = new Object[size];
+            for (int id = 0; id < size; id++) {
+                locks[id] = new Object();
+            }
+        }
+
+        /**
+         * Adds one to each counter with its bit set, only called holding the id's lock
+         */
+        private void add(int id, int counted) {
+            for (int bits = counted; bits != 0; bits &= bits - 1) {
+                counts[id * counterCount + Integer.numberOfTrailingZeros(bits)]++;
+            }
+        }
+
+        private long get(int id, int counter) {
+            synchronized (locks[id]) {
+                return counts[id * counterCount + counter];
+            }
+        }
+
+        private double ratio(int id, int counter, int outOf) {
+            synchronized (locks[id]) {
+                long total = counts[id * counterCount + outOf];
+                return total == 0 ? 0 : (double) counts[id * counterCount + counter] / total;
+            }
+        }
+
+        /**
+         * @return strikes over balls bowled at a full rack, from 0 to 1
+         */
+        public double strikeRate(int id) {
+            return ratio(id, strikes, strikeChances);
+        }
+
+        /**
+         * @return spares picked up over balls bowled at a partial rack, from 0 to 1
+         */
+        public double spareConversionRate(int id) {
+            return ratio(id, spares, spareChances);
+        }
+
+        /**
+         * @return frames with neither a strike nor a spare over frames finished, from 0 to 1
+         */
+        public double openFrameRate(int id) {
+            return ratio(id, openFrames, frames);
+        }
+
+        /**
+         * @return frames finished
+         */
+        public long frameCount(int id) {
+            return get(id, frames);
+        }
+
+        /**
+         * @param pins pins knocked down, 0 to 10
+         * @return how many balls bowled at a full rack knocked down that many pins
+         */
+        public long firstBallCount(int id, int pins) {
+            return get(id, firstBallPins + pins);
+        }
+
+        /**
+         * @return last frames started with a strike
+         */
+        public long tenthFrameStrikes(int id) {
+            return get(id, tenthStrikes);
+        }
+
+        /**
+         * @return last frames with a spare on the first two balls
+         */
+        public long tenthFrameSpares(int id) {
+            return get(id, tenthSpares);
+        }
+
+        /**
+         * @return last frames with neither a strike nor a spare
+         */
+        public long tenthFrameOpens(int id) {
+            return get(id, tenthOpens);
+        }
+
+        /**
+         * @return last frames that were three strikes
+         */
+        public long tenthFrameTurkeys(int id) {
+            return get(id, tenthTurkeys);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package dius.test.bigreidy;
+
+/**
+ * Outcome of trying a roll, for callers that would rather check a result than catch an exception,
+ * e.g. when a glitching lane sensor sends a burst of bad rolls.
+ * Each rejection carries the message and exception type the throwing API has always used.
+ * Messages that mention the pins in a rack say 10, or what a full rack is worth for other rule sets.
+ */
+public enum RollStatus {
+    ACCEPTED(null),
+    NEGATIVE_PINS("Cannot bowl negative numbers of pins"),
+    TOO_MANY_PINS("Cannot Bowl More Than %d pins in a single bowl"),
+    FRAME_OVERFLOW("Cannot Bowl More Than %d pins total for a frame"),
+    /**
+     * only from a single {@link Frame}, a game moves on to the next frame by itself
+     */
+    FRAME_COMPLETE("Cannot bowl again for this frame"),
+    MATCH_ENDED("Match has ended"),
+    /**
+     * only from 5-pin, where no set of pins adds up to some numbers of points
+     */
+    IMPOSSIBLE_PINS("No set of pins is worth that many points");
+
+    private final String template;
+    private final String message;
+
+    RollStatus(String template) {
+        this.template = template;
+        message = getMessage(Frame.maxPins);
+    }
+
+    /**
+     * @return whether the roll was recorded
+     */
+    public boolean isAccepted() {
+        return this == ACCEPTED;
+    }
+
+    /**
+     * @return why the roll was rejected, null if it was accepted
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @param rackPoints what a full rack is worth under the rules being played
+     * @return why the roll was rejected, null if it was accepted
+     */
+    public String getMessage(int rackPoints) {
+        return template == null ? null : String.format(template, rackPoints);
+    }
+
+    /**
+     * The exception the throwing API raises for this status.
+     * Only ever built once a roll has been rejected, so accepted rolls never pay for a stack trace.
+     *
+     * @return {@link IllegalStateException} when nothing more can be bowled, otherwise {@link IllegalArgumentException}
+     * @throws IllegalStateException the roll was accepted, there is nothing to throw
+     */
+    public RuntimeException toException() throws IllegalStateException {
+        return toException(message);
+    }
+
+    /**
+     * The exception the throwing API raises for this status, under rules other than ten-pin
+     *
+     * @param rackPoints what a full rack is worth under the rules being played
+     * @return {@link IllegalStateException} when nothing more can be bowled, otherwise {@link IllegalArgumentException}
+     * @throws IllegalStateException the roll was accepted, there is nothing to throw
+     */
+    public RuntimeException toException(int rackPoints) throws IllegalStateException {
+        return toException(rackPoints == Frame.maxPins ? message : getMessage(rackPoints));
+    }
+
+    private RuntimeException toException(String message) {
+        switch (this) {
+            case ACCEPTED:
+                throw new IllegalStateException("Roll was accepted");
+            case FRAME_COMPLETE:
+            case MATCH_ENDED:
+                return new IllegalStateException(message);
+            default:
+                return new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Throws the exception for this status, if the roll was rejected
+     *
+     * @throws IllegalStateException    nothing more can be bowled
+     * @throws IllegalArgumentException the number of pins is not possible
+     */
+    public void throwIfRejected() throws IllegalStateException, IllegalArgumentException {
+        if (this != ACCEPTED) throw toException();
+    }
+
+    /**
+     * Throws the exception for this status, if the roll was rejected, under rules other than ten-pin
+     *
+     * @param rackPoints what a full rack is worth under the rules being played
+     * @throws IllegalStateException    nothing more can be bowled
+     * @throws IllegalArgumentException the number of pins is not possible
+     */
+    public void throwIfRejected(int rackPoints) throws IllegalStateException, IllegalArgumentException {
+        if (this != ACCEPTED) throw toException(rackPoints);
+    }
+}
@@ -0,0 +1,124 @@
+package dius.test.bigreidy;
+
+/**
+ * The kinds of bowling the centre runs, and the game that scores each one.
+ * A rule set is its frame count, what a full rack is worth, the balls per frame, the strike bonus and any
+ * points no set of pins can make, and {@link RuleSetGame} plays any of them from those alone.
+ * <p>
+ * Only ten-pin and nine-pin no-tap have games of their own: ten-pin is plain {@link BowlingGame}, exactly as
+ * it was, and nine-pin no-tap wraps it, so their fields describe BowlingGame's rules rather than drive them.
+ * Candlepin, duckpin and 5-pin all share the data-driven RuleSetGame. It is still a single final class reading
+ * plain fields, so a lane's calls stay monomorphic, it just isn't specialised per rule set.
+ * The scoring engine tests check a RuleSetGame on ten-pin's fields plays the same as BowlingGame.
+ */
+public enum RuleSet {
+    TEN_PIN(BowlingGame.maxFrames, Frame.maxPins, 2, 2, 0) {
+        @Override
+        public BowlingGame newGame() {
+            return new BowlingGame();
+        }
+    },
+    /**
+     * ten-pin, except 9 pins on a full rack counts as a strike
+     */
+    NINE_PIN_NO_TAP(BowlingGame.maxFrames, Frame.maxPins, 2, 2, 0) {
+        @Override
+        public NinePinNoTapGame newGame() {
+            return new NinePinNoTapGame();
+        }
+    },
+    CANDLEPIN(10, 10, 3, 2, 0),
+    /**
+     * scored the same as candlepin
+     */
+    DUCKPIN(10, 10, 3, 2, 0),
+    /**
+     * rolls are the points knocked down rather than the pins: the five pins are worth 2, 3, 5, 3 and 2,
+     * so no set of them is worth 1 point
+     */
+    FIVE_PIN(10, 15, 3, 2, 1);
+
+    private final int frames;
+    private final int rackPoints;
+    private final int ballsPerFrame;
+    private final int strikeBonus;
+    private final int impossiblePoints;
+
+    /**
+     * @param frames           frames in a game
+     * @param rackPoints       what a full rack is worth
+     * @param ballsPerFrame    most balls in a frame, before any bonus balls in the last
+     * @param strikeBonus      balls a strike scores as its bonus, at most 2
+     * @param impossiblePoints points no set of pins is worth, so can't be knocked down or left standing, or 0
+     */
+    RuleSet(int frames, int rackPoints, int ballsPerFrame, int strikeBonus, int impossiblePoints) {
+        this.frames = frames;
+        this.rackPoints = rackPoints;
+        this.ballsPerFrame = ballsPerFrame;
+        this.strikeBonus = strikeBonus;
+        this.impossiblePoints = impossiblePoints;
+    }
+
+    /**
+     * @return a new game under these rules
+     */
+    public Game newGame() {
+        return new RuleSetGame(this);
+    }
+
+    /**
+     * @return frames in a game
+     */
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return what a full rack is worth, the pins for every game but 5-pin
+     */
+    public int getRackPoints() {
+        return rackPoints;
+    }
+
+    /**
+     * @return most balls in a frame, before any bonus balls in the last
+     */
+    public int getBallsPerFrame() {
+        return ballsPerFrame;
+    }
+
+    /**
+     * @return balls a strike scores as its bonus
+     */
+    public int getStrikeBonus() {
+        return strikeBonus;
+    }
+
+    /**
+     * Bonus for clearing the rack: a strike's bonus, and one ball fewer for each extra ball it took,
+     * so a spare scores the next ball and a ten-box in a three-ball game nothing.
+     * In the last frame the bonus balls are bowled as part of the frame instead.
+     *
+     * @param balls balls it took to clear the rack
+     * @return balls to add as a bonus
+     */
+    public int bonusBalls(int balls) {
+        return Math.max(0, strikeBonus + 1 - balls);
+    }
+
+    /**
+     * @param points   knocked down in a ball, no more than are standing
+     * @param standing points standing before the ball
+     * @return whether some set of the standing pins is worth that much, as far as can be told from the points
+     */
+    public boolean isPossible(int points, int standing) {
+        return impossiblePoints == 0 || points != impossiblePoints && standing - points != impossiblePoints;
+    }
+
+    /**
+     * @return a perfect game: a strike with every ball
+     */
+    public int getMaxScore() {
+        return frames * (1 + strikeBonus) * rackPoints;
+    }
+}
@@ -0,0 +1,89 @@
+package dius.test.bigreidy;
+
+/**
+ * A game played purely from a {@link RuleSet}'s fields, as in candlepin, duckpin and 5-pin.
+ * Clearing the rack scores the rule set's {@link RuleSet#bonusBalls(int)}: with three balls a strike scores the
+ * next two balls, a spare (with two balls) the next ball, and a ten-box (with all three) no bonus. The last frame
+ * gets its bonus balls in the frame itself, with the rack set up again each time it is cleared.
+ * Bonuses use the same open bonus queue as {@link BowlingGame}.
+ * <p>
+ * For 5-pin a roll is the points knocked down. Only the points left standing are kept, not which pins, so
+ * a roll is checked against those and against the points no set of pins can make, but not against
+ * which pins are actually left.
+ */
+public final class RuleSetGame implements Game {
+
+    private final RuleSet rules;
+    private final int frames;
+    private final int rackPoints;
+    private final int ballsPerFrame;
+    private int frameIdx = 0;
+    private int frameBalls = 0;
+    /**
+     * balls the last frame takes, more once the rack has been cleared in it
+     */
+    private int lastFrameBalls;
+    private int standing;
+    private int openBonuses = 0;
+    private int runningScore = 0;
+
+    /**
+     * @param rules what to play
+     */
+    RuleSetGame(RuleSet rules) {
+        this.rules = rules;
+        frames = rules.getFrames();
+        rackPoints = rules.getRackPoints();
+        ballsPerFrame = rules.getBallsPerFrame();
+        lastFrameBalls = ballsPerFrame;
+        standing = rackPoints;
+    }
+
+    @Override
+    public void roll(int noOfPins) throws IllegalStateException, IllegalArgumentException {
+        tryRoll(noOfPins).throwIfRejected(rackPoints);
+    }
+
+    @Override
+    public RollStatus tryRoll(int noOfPins) {
+        if (frameIdx >= frames) return RollStatus.MATCH_ENDED;
+        if (noOfPins < 0) return RollStatus.NEGATIVE_PINS;
+        if (noOfPins > rackPoints) return RollStatus.TOO_MANY_PINS;
+        if (noOfPins > standing) return RollStatus.FRAME_OVERFLOW;
+        if (!rules.isPossible(noOfPins, standing)) return RollStatus.IMPOSSIBLE_PINS;
+
+        runningScore += BowlingGame.rollValue(openBonuses, noOfPins);
+        openBonuses = BowlingGame.closeBonuses(openBonuses);
+        frameBalls++;
+        standing -= noOfPins;
+        if (frameIdx == frames - 1) {
+            if (standing == 0) {
+                lastFrameBalls = Math.max(lastFrameBalls, frameBalls + rules.bonusBalls(frameBalls));
+                standing = rackPoints;
+            }
+            if (frameBalls == lastFrameBalls) frameIdx++;
+        } else if (standing == 0 || frameBalls == ballsPerFrame) {
+            int bonusBalls = standing == 0 ? rules.bonusBalls(frameBalls) : 0;
+            if (bonusBalls > 0) openBonuses = BowlingGame.withBonus(openBonuses, bonusBalls);
+            frameIdx++;
+            frameBalls = 0;
+            standing = rackPoints;
+        }
+        return RollStatus.ACCEPTED;
+    }
+
+    @Override
+    public int score() {
+        return runningScore;
+    }
+
+    @Override
+    public boolean isMatchEnded() {
+        return frameIdx >= frames;
+    }
+
+    @Override
+    public int getFrameIndex() {
+        return frameIdx;
+    }
+}
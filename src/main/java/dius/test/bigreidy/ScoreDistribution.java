@@ -0,0 +1,176 @@
+package dius.test.bigreidy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Exact distributions of final scores, over every legal game at once, for handicap modelling.
+ * <p>
+ * Works backwards over the states of {@link StateMachineGame}'s transition table, which is built from
+ * {@link Frame}'s rules, so the two can't drift apart. Each state's spread of points still to come is worked out
+ * once from the states a roll can lead to, and shared by every game passing through it. States are grouped by
+ * the most rolls left until the end of the match; states in a group never lead to each other, so a group can
+ * be worked out in parallel.
+ */
+public final class ScoreDistribution {
+
+    /**
+     * Chance of each number of pins being knocked down by a bowl
+     */
+    public interface RollModel {
+        /**
+         * @param standing pins standing before the bowl, 1 to 10
+         * @param pins     pins knocked down, 0 to standing
+         * @return relative chance of that many pins, they are scaled to add up to 1 over every number of pins
+         */
+        double probability(int standing, int pins);
+    }
+
+    /**
+     * every state, grouped by the most rolls it can take to end the match, the end of the match first
+     */
+    private static final int[][] layers = layers();
+
+    private ScoreDistribution() {
+    }
+
+    /**
+     * @return a model where every number of pins from 0 to those standing is as likely as any other
+     */
+    public static RollModel uniform() {
+        return (standing, pins) -> 1;
+    }
+
+    /**
+     * Probability of ending on each score, if every bowl follows the model
+     *
+     * @param model    chance of each number of pins
+     * @param parallel whether to spread the work over the common fork-join pool
+     * @return chance of each final score, indexed by score from 0 to {@link BowlingGame#maxScore}
+     * @throws IllegalArgumentException the model gives a negative chance, or no chance of anything
+     */
+    public static double[] probabilities(RollModel model, boolean parallel) throws IllegalArgumentException {
+        int stateCount = StateMachineGame.getStateCount();
+        double[][] future = new double[stateCount][];
+        for (int[] layer : layers) {
+            IntStream states = IntStream.of(layer);
+            (parallel ? states.parallel() : states).forEach(state -> future[state] = probabilities(model, state, future));
+        }
+        return future[StateMachineGame.initialState];
+    }
+
+    /**
+     * @return chance of each number of points still to come from a state, given those of the states after it
+     */
+    private static double[] probabilities(RollModel model, int state, double[][] future) {
+        double[] points = new double[BowlingGame.maxScore + 1];
+        if (StateMachineGame.isMatchEnded(state)) {
+            points[0] = 1;
+            return points;
+        }
+        int standing = pinsStanding(state);
+        double total = 0;
+        for (int pins = 0; pins <= standing; pins++) {
+            double chance = model.probability(standing, pins);
+            if (!(chance >= 0)) throw new IllegalArgumentException("Roll chances must not be negative");
+            total += chance;
+        }
+        if (total == 0) throw new IllegalArgumentException("Roll chances must not all be zero");
+        for (int pins = 0; pins <= standing; pins++) {
+            double chance = model.probability(standing, pins) / total;
+            if (chance == 0) continue;
+            int transition = StateMachineGame.transition(state, pins);
+            double[] next = future[StateMachineGame.nextState(transition)];
+            int delta = StateMachineGame.scoreDelta(transition);
+            for (int score = 0; score + delta < points.length; score++) {
+                points[score + delta] += chance * next[score];
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Number of distinct legal games, as sequences of bowls, that end on each score.
+     * 5,726,805,883,325,784,576 games in all, which only just fits in a long.
+     *
+     * @param parallel whether to spread the work over the common fork-join pool
+     * @return number of games ending on each score, indexed by score from 0 to {@link BowlingGame#maxScore}
+     */
+    public static long[] gameCounts(boolean parallel) {
+        int stateCount = StateMachineGame.getStateCount();
+        long[][] future = new long[stateCount][];
+        for (int[] layer : layers) {
+            IntStream states = IntStream.of(layer);
+            (parallel ? states.parallel() : states).forEach(state -> future[state] = gameCounts(state, future));
+        }
+        return future[StateMachineGame.initialState];
+    }
+
+    private static long[] gameCounts(int state, long[][] future) {
+        long[] points = new long[BowlingGame.maxScore + 1];
+        if (StateMachineGame.isMatchEnded(state)) {
+            points[0] = 1;
+            return points;
+        }
+        int standing = pinsStanding(state);
+        for (int pins = 0; pins <= standing; pins++) {
+            int transition = StateMachineGame.transition(state, pins);
+            long[] next = future[StateMachineGame.nextState(transition)];
+            int delta = StateMachineGame.scoreDelta(transition);
+            for (int score = 0; score + delta < points.length; score++) {
+                points[score + delta] = Math.addExact(points[score + delta], next[score]);
+            }
+        }
+        return points;
+    }
+
+    /**
+     * The table refuses any more pins than are standing, so the most it allows is the pins standing
+     */
+    private static int pinsStanding(int state) {
+        int standing = Frame.maxPins;
+        while (StateMachineGame.transition(state, standing) < 0) {
+            standing--;
+        }
+        return standing;
+    }
+
+    /**
+     * Groups the states by the most rolls left until the end of the match. Every roll leads to a state with
+     * fewer rolls left, so working through the groups in order always has the later states ready.
+     */
+    private static int[][] layers() {
+        int stateCount = StateMachineGame.getStateCount();
+        int[] rollsLeft = new int[stateCount];
+        // each roll moves a game on, so repeating until nothing changes settles within a game's worth of rolls
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int state = 0; state < stateCount; state++) {
+                if (StateMachineGame.isMatchEnded(state)) continue;
+                int most = 0;
+                for (int pins = 0; pins <= Frame.maxPins; pins++) {
+                    int transition = StateMachineGame.transition(state, pins);
+                    if (transition >= 0) most = Math.max(most, rollsLeft[StateMachineGame.nextState(transition)] + 1);
+                }
+                if (most != rollsLeft[state]) {
+                    rollsLeft[state] = most;
+                    changed = true;
+                }
+            }
+        }
+        List<List<Integer>> grouped = new ArrayList<>();
+        for (int state = 0; state < stateCount; state++) {
+            while (grouped.size() <= rollsLeft[state]) {
+                grouped.add(new ArrayList<>());
+            }
+            grouped.get(rollsLeft[state]).add(state);
+        }
+        int[][] layers = new int[grouped.size()][];
+        for (int i = 0; i < layers.length; i++) {
+            layers[i] = grouped.get(i).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return layers;
+    }
+}
@@ -0,0 +1,77 @@
+package dius.test.bigreidy;
+
+/**
+ * Scores of a set of games, along with the totals across them.
+ * Everything is worked out from a histogram of whole scores, so it comes out the same however the games were split up.
+ */
+public class ScoreSummary {
+
+    private final int[] scores;
+    private final long[] histogram;
+    private final long total;
+    private final int max;
+
+    /**
+     * @param scores    score of each game
+     * @param histogram number of games with each score from 0 to {@link BowlingGame#maxScore}
+     */
+    ScoreSummary(int[] scores, long[] histogram) {
+        this.scores = scores;
+        this.histogram = histogram;
+        long sum = 0;
+        int highest = 0;
+        for (int score = 0; score < histogram.length; score++) {
+            if (histogram[score] == 0) continue;
+            sum += histogram[score] * score;
+            highest = score;
+        }
+        total = sum;
+        max = highest;
+    }
+
+    /**
+     * score of each game, in the same order they were given.
+     * This is the array the scores were written into, not a copy.
+     *
+     * @return scores of the games
+     */
+    public int[] getScores() {
+        return scores;
+    }
+
+    /**
+     * @return number of games scored
+     */
+    public int getGameCount() {
+        return scores.length;
+    }
+
+    /**
+     * @return sum of every game's score
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * @return average score, or 0 if there were no games
+     */
+    public double getMean() {
+        return scores.length == 0 ? 0 : (double) total / scores.length;
+    }
+
+    /**
+     * @return highest score, or 0 if there were no games
+     */
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @param score a score from 0 to {@link BowlingGame#maxScore}
+     * @return how many games ended up with that score
+     */
+    public long getCount(int score) {
+        return histogram[score];
+    }
+}
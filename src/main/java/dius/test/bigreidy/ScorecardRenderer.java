@@ -0,0 +1,204 @@
+package dius.test.bigreidy;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+/**
+ * Renders a game as a standard two line scorecard: the marks for each bowl (X, /, - or the pins),
+ * then the running total under each frame once that frame's bonuses are known.
+ * <pre>
+ * |  X|7 /|9 -|  X|- 8|8 /|- 6|  X|  X|X 8 1|
+ * | 20| 39| 48| 66| 74| 84| 90|120|148|  167|
+ * </pre>
+ * Every frame is always at the same place in the card, so after a roll only the frames that changed are written.
+ * A renderer remembers what it last wrote, so keep one per target buffer (e.g. one per lane) and it never allocates.
+ */
+public class ScorecardRenderer {
+
+    /**
+     * characters in a row of the card, not counting the line break
+     */
+    public static final int width = 4 * (BowlingGame.maxFrames - 1) + 7;
+    /**
+     * characters in the whole card, both rows with a line break after each
+     */
+    public static final int length = 2 * (width + 1);
+
+    /**
+     * the card as last rendered
+     */
+    private final char[] card = new char[length];
+    /**
+     * what each frame was last rendered from, the packed rolls with the bowl count above them
+     */
+    private final int[] renderedRolls = new int[BowlingGame.maxFrames];
+    /**
+     * running total each frame was last rendered with, -1 if it wasn't known yet
+     */
+    private final int[] renderedTotals = new int[BowlingGame.maxFrames];
+    /**
+     * a bit per frame that has changed since it was last written out
+     */
+    private int changedFrames;
+
+    public ScorecardRenderer() {
+        reset();
+    }
+
+    /**
+     * Forgets what was rendered, so the next render writes the whole card, e.g. when switching to a new buffer
+     */
+    public void reset() {
+        Arrays.fill(renderedRolls, -1);
+        Arrays.fill(renderedTotals, Integer.MIN_VALUE);
+        changedFrames = 0;
+    }
+
+    /**
+     * Writes the frames that changed since the last render
+     *
+     * @param game   game to render
+     * @param out    builder holding the card from the last render, extended if it is too short
+     * @param offset index in the builder that the card starts at
+     * @return number of frames written
+     */
+    public int render(BowlingGame game, StringBuilder out, int offset) {
+        int changed = update(game);
+        if (out.length() < offset + length) out.setLength(offset + length);
+        for (int f = 0; f < BowlingGame.maxFrames; f++) {
+            if ((changed & (1 << f)) == 0) continue;
+            for (int i = cellStart(f); i < cellEnd(f); i++) {
+                out.setCharAt(offset + i, card[i]);
+                out.setCharAt(offset + width + 1 + i, card[width + 1 + i]);
+            }
+        }
+        return Integer.bitCount(changed);
+    }
+
+    /**
+     * Writes the frames that changed since the last render, starting at the buffer's position.
+     * The position is left where it was, so the next render lands on the same card.
+     *
+     * @param game game to render
+     * @param out  buffer holding the card from the last render, with at least {@link #length} characters remaining
+     * @return number of frames written
+     */
+    public int render(BowlingGame game, CharBuffer out) {
+        int changed = update(game);
+        int offset = out.position();
+        for (int f = 0; f < BowlingGame.maxFrames; f++) {
+            if ((changed & (1 << f)) == 0) continue;
+            for (int i = cellStart(f); i < cellEnd(f); i++) {
+                out.put(offset + i, card[i]);
+                out.put(offset + width + 1 + i, card[width + 1 + i]);
+            }
+        }
+        return Integer.bitCount(changed);
+    }
+
+    /**
+     * Writes the frames that changed since the last render as ASCII, starting at the buffer's position.
+     * The position is left where it was, so the next render lands on the same card.
+     *
+     * @param game game to render
+     * @param out  buffer holding the card from the last render, with at least {@link #length} bytes remaining
+     * @return number of frames written
+     */
+    public int render(BowlingGame game, ByteBuffer out) {
+        int changed = update(game);
+        int offset = out.position();
+        for (int f = 0; f < BowlingGame.maxFrames; f++) {
+            if ((changed & (1 << f)) == 0) continue;
+            for (int i = cellStart(f); i < cellEnd(f); i++) {
+                out.put(offset + i, (byte) card[i]);
+                out.put(offset + width + 1 + i, (byte) card[width + 1 + i]);
+            }
+        }
+        return Integer.bitCount(changed);
+    }
+
+    /**
+     * Splits the rolls into frames the same way {@link BowlingGame} does, and redraws the frames whose marks
+     * or final running total differ from last time in the card
+     *
+     * @return a bit per frame that needs writing out
+     */
+    private int update(BowlingGame game) {
+        int rollCount = game.getRollCount();
+        int finishedFrames = game.getFinishedFrameCount();
+        int roll = 0;
+        for (int f = 0; f < BowlingGame.maxFrames; f++) {
+            boolean lastFrame = f == BowlingGame.maxFrames - 1;
+            int packed = 0;
+            int bowls = 0;
+            while (roll < rollCount && Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                packed = Frame.withRoll(packed, bowls++, game.getRoll(roll++));
+            }
+            int rolls = packed | (bowls << 12);
+            int frameTotal = f < finishedFrames ? game.getCumulativeScore(f) : -1;
+            if (rolls != renderedRolls[f] || frameTotal != renderedTotals[f]) {
+                drawFrame(f, lastFrame, packed, bowls, frameTotal);
+                renderedRolls[f] = rolls;
+                renderedTotals[f] = frameTotal;
+                changedFrames |= 1 << f;
+            }
+        }
+        int changed = changedFrames;
+        changedFrames = 0;
+        return changed;
+    }
+
+    private static int cellStart(int frame) {
+        return 4 * frame;
+    }
+
+    /**
+     * the last frame's cell also covers the closing bar and the line break
+     */
+    private static int cellEnd(int frame) {
+        return frame == BowlingGame.maxFrames - 1 ? width + 1 : cellStart(frame) + 4;
+    }
+
+    private void drawFrame(int frame, boolean lastFrame, int packed, int bowls, int total) {
+        int start = cellStart(frame);
+        int end = cellEnd(frame);
+        for (int i = start; i < end; i++) {
+            card[i] = ' ';
+            card[width + 1 + i] = ' ';
+        }
+        card[start] = '|';
+        card[width + 1 + start] = '|';
+        if (lastFrame) {
+            card[width - 1] = '|';
+            card[width] = '\n';
+            card[2 * width] = '|';
+            card[length - 1] = '\n';
+        }
+        if (!lastFrame && Frame.isStrike(packed, bowls)) {
+            // a strike goes in the second box, as on a paper card
+            card[start + 3] = 'X';
+        } else {
+            for (int b = 0; b < bowls; b++) {
+                card[start + 1 + 2 * b] = mark(lastFrame, packed, b);
+            }
+        }
+        if (total >= 0) {
+            // right aligned in the frame's cell, so it ends just before the next bar
+            int i = end - (lastFrame ? 3 : 1) + width + 1;
+            do {
+                card[i--] = (char) ('0' + total % 10);
+                total /= 10;
+            } while (total > 0);
+        }
+    }
+
+    private static char mark(boolean lastFrame, int packed, int bowl) {
+        int pins = Frame.rollAt(packed, bowl);
+        boolean fullRack = Frame.isFullRack(lastFrame, packed, bowl);
+        if (fullRack && pins == Frame.maxPins) return 'X';
+        if (!fullRack && pins == Frame.pinsStanding(lastFrame, packed, bowl)) return '/';
+        if (pins == 0) return '-';
+        return (char) ('0' + pins);
+    }
+}
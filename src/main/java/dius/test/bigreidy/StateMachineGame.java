@@ -0,0 +1,244 @@
+package dius.test.bigreidy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A game of bowling scored by a precomputed state-transition table, for predictable per-roll latency.
+ * Same {@link Game} contract as {@link BowlingGame}, with the same exceptions.
+ * <p>
+ * A game only has a small number of states that matter for what comes next: the frame, the bowl within it,
+ * the pins standing (plus, on the last frame, whether a strike earned the fill balls) and the open bonuses.
+ * At class load every reachable state is found by playing every possible roll through {@link Frame}'s and
+ * {@link BowlingGame}'s rules, so each roll afterwards is a single table lookup giving the next state,
+ * what the roll scores and whether it was legal.
+ */
+public class StateMachineGame implements Game {
+
+    private static final int pinOutcomes = Frame.maxPins + 1;
+    private static final int stateBits = 12;
+    private static final int stateMask = (1 << stateBits) - 1;
+    /**
+     * table entry for a roll that knocks down more pins than are standing
+     */
+    private static final int frameOverflow = -1;
+    /**
+     * table entry for any roll once the match has ended
+     */
+    private static final int matchOver = -2;
+
+    /**
+     * for state s and pins p, entry s * 11 + p is the next state in the low bits and the score delta above them,
+     * or one of the negative codes if the roll is not allowed
+     */
+    private static final int[] transitions;
+    /**
+     * frame index of each state, {@link BowlingGame#maxFrames} once the match has ended
+     */
+    private static final byte[] stateFrames;
+    private static final int stateCount;
+    static final int initialState = 0;
+
+    static {
+        TableBuilder builder = new TableBuilder();
+        builder.build();
+        transitions = builder.table;
+        stateCount = builder.states;
+        stateFrames = new byte[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            stateFrames[s] = (byte) (builder.keys[s] >>> 40);
+        }
+    }
+
+    private int state = initialState;
+    private int runningScore = 0;
+
+    /**
+     * @return number of distinct game states in the table, including the end of the match
+     */
+    static int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * Looks up a roll in the table
+     *
+     * @param state    current state
+     * @param noOfPins knocked down in this bowl, must be 0 to 10
+     * @return next state and score delta, see {@link #nextState(int)} and {@link #scoreDelta(int)}, or negative if not allowed
+     */
+    static int transition(int state, int noOfPins) {
+        return transitions[state * pinOutcomes + noOfPins];
+    }
+
+    /**
+     * @param state a state from the table
+     * @return index of the frame the next bowl will be in, or {@link BowlingGame#maxFrames} once the match has ended
+     */
+    static int frameOf(int state) {
+        return stateFrames[state];
+    }
+
+    static int nextState(int transition) {
+        return transition & stateMask;
+    }
+
+    static int scoreDelta(int transition) {
+        return transition >>> stateBits;
+    }
+
+    /**
+     * @param state a state from the table
+     * @return whether that state is the end of the match
+     */
+    static boolean isMatchEnded(int state) {
+        return transitions[state * pinOutcomes] == matchOver;
+    }
+
+    @Override
+    public boolean isMatchEnded() {
+        return isMatchEnded(state);
+    }
+
+    @Override
+    public void roll(int noOfPins) throws IllegalStateException, IllegalArgumentException {
+        int transition = checkedTransition(state, noOfPins);
+        state = nextState(transition);
+        runningScore += scoreDelta(transition);
+    }
+
+    @Override
+    public RollStatus tryRoll(int noOfPins) {
+        if (Integer.compareUnsigned(noOfPins, Frame.maxPins) <= 0) {
+            int transition = transition(state, noOfPins);
+            if (transition >= 0) {
+                state = nextState(transition);
+                runningScore += scoreDelta(transition);
+                return RollStatus.ACCEPTED;
+            }
+        }
+        return rejection(state, noOfPins);
+    }
+
+    /**
+     * Looks up a roll in the table, throwing the same exceptions as {@link BowlingGame#roll(int)} if it isn't allowed
+     *
+     * @param state    current state
+     * @param noOfPins knocked down in this bowl
+     * @return next state and score delta, see {@link #nextState(int)} and {@link #scoreDelta(int)}
+     * @throws IllegalStateException    the match has ended
+     * @throws IllegalArgumentException the number of pins is not possible
+     */
+    static int checkedTransition(int state, int noOfPins) throws IllegalStateException, IllegalArgumentException {
+        if (Integer.compareUnsigned(noOfPins, Frame.maxPins) <= 0) {
+            int transition = transition(state, noOfPins);
+            if (transition >= 0) return transition;
+        }
+        throw rejection(state, noOfPins).toException();
+    }
+
+    /**
+     * @param state    current state
+     * @param noOfPins a roll the table does not allow from that state
+     * @return why it is not allowed
+     */
+    private static RollStatus rejection(int state, int noOfPins) {
+        if (isMatchEnded(state)) return RollStatus.MATCH_ENDED;
+        if (noOfPins < 0) return RollStatus.NEGATIVE_PINS;
+        if (noOfPins > Frame.maxPins) return RollStatus.TOO_MANY_PINS;
+        return RollStatus.FRAME_OVERFLOW;
+    }
+
+    @Override
+    public int score() {
+        return runningScore;
+    }
+
+    @Override
+    public int getFrameIndex() {
+        return frameOf(state);
+    }
+
+    /**
+     * Finds every reachable state by playing every roll from the start of the game.
+     * Only used once, at class load.
+     */
+    private static final class TableBuilder {
+
+        /**
+         * state index for each canonical state key, and the key for each index
+         */
+        private final Map<Long, Integer> indexes = new HashMap<>();
+        private long[] keys = new long[256];
+        private int[] table = new int[256 * pinOutcomes];
+        private int states = 0;
+
+        private void build() {
+            indexOf(key(0, 0, 0, 0));
+            for (int s = 0; s < states; s++) {
+                long key = keys[s];
+                int frame = (int) (key >>> 40);
+                int bowls = (int) (key >>> 32) & 0xff;
+                int packed = (int) (key >>> 8) & 0xffffff;
+                int openBonuses = (int) key & 0xff;
+                for (int pins = 0; pins < pinOutcomes; pins++) {
+                    table[s * pinOutcomes + pins] = transition(frame, bowls, packed, openBonuses, pins);
+                }
+            }
+        }
+
+        /**
+         * The same steps as {@link BowlingGame#roll(int)}
+         */
+        private int transition(int frame, int bowls, int packed, int openBonuses, int pins) {
+            if (frame >= BowlingGame.maxFrames) return matchOver;
+            boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+            if (pins > Frame.pinsStanding(lastFrame, packed, bowls)) return frameOverflow;
+            int delta = BowlingGame.rollValue(openBonuses, pins);
+            openBonuses = BowlingGame.closeBonuses(openBonuses);
+            packed = Frame.withRoll(packed, bowls++, pins);
+            if (!Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                if (!lastFrame) openBonuses = BowlingGame.openBonus(openBonuses, packed, bowls);
+                frame++;
+                packed = 0;
+                bowls = 0;
+            }
+            return indexOf(key(frame, bowls, packed, openBonuses)) | (delta << stateBits);
+        }
+
+        /**
+         * Two frames that have the same pins standing and the same strike/spare status behave the same from
+         * here on, so the frame's rolls are replaced by the simplest ones that give that
+         */
+        private long key(int frame, int bowls, int packed, int openBonuses) {
+            if (bowls > 0) {
+                boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+                int standing = Frame.pinsStanding(lastFrame, packed, bowls);
+                int canonical = Frame.isStrike(packed, bowls) ? Frame.withRoll(0, 0, Frame.maxPins)
+                        : Frame.withRoll(0, 0, Frame.maxPins - standing);
+                if (bowls == 2) {
+                    // only reached on the last frame after a strike or spare, so the third ball never scores a bonus
+                    canonical = Frame.withRoll(canonical, 1, standing == Frame.maxPins ? Frame.maxPins : Frame.maxPins - standing);
+                }
+                packed = canonical;
+            }
+            return ((long) frame << 40) | ((long) bowls << 32) | ((long) packed << 8) | openBonuses;
+        }
+
+        private int indexOf(long key) {
+            Integer index = indexes.get(key);
+            if (index != null) return index;
+            if (states == keys.length) {
+                keys = Arrays.copyOf(keys, states * 2);
+                table = Arrays.copyOf(table, states * 2 * pinOutcomes);
+            }
+            if (states > stateMask) {
+                throw new IllegalStateException("Too many states for the transition table");
+            }
+            keys[states] = key;
+            indexes.put(key, states);
+            return states++;
+        }
+    }
+}
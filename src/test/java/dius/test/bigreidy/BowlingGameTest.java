@@ -2,6 +2,9 @@ package dius.test.bigreidy;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -103,4 +106,293 @@ class BowlingGameTest {
         assertFalse(bowlingGame.isMatchEnded());
         assertEquals(24, bowlingGame.score());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test the running score after every roll of a full game
+     * mixes strikes, spares and open frames, with a strike and fill balls in the last frame
+     */
+    @Test
+    void testScoreAfterEveryRoll() {
+        int[] rolls = {10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1};
+        int[] expected = {10, 24, 30, 48, 48, 58, 58, 74, 82, 84, 84, 90, 100, 120, 150, 166, 167};
+        BowlingGame bowlingGame = new BowlingGame();
+        for (int i = 0; i < rolls.length; i++) {
+            bowlingGame.roll(rolls[i]);
+            assertEquals(expected[i], bowlingGame.score());
+        }
+        assertTrue(bowlingGame.isMatchEnded());
+    }
+
+    /**
+     * Test the longest possible game, every frame a spare plus the fill ball
+     */
+    @Test
+    void testGameAllSpares() {
+        BowlingGame bowlingGame = new BowlingGame();
+        IntStream.rangeClosed(1, BowlingGame.maxRolls).forEach(r -> bowlingGame.roll(5));
+        assertTrue(bowlingGame.isMatchEnded());
+        assertEquals(150, bowlingGame.score());
+    }
+
+    /**
+     * Test the best possible score as a game goes on
+     */
+    @Test
+    void testMaxPossibleScore() {
+        BowlingGame bowlingGame = new BowlingGame();
+        assertEquals(300, bowlingGame.maxPossibleScore());
+        bowlingGame.roll(10);
+        assertEquals(300, bowlingGame.maxPossibleScore());
+        bowlingGame.roll(7);
+        // strike then a spare, followed by strikes
+        assertEquals(20 + 20 + 8 * 30, bowlingGame.maxPossibleScore());
+        bowlingGame.roll(0);
+        assertEquals(17 + 7 + 8 * 30, bowlingGame.maxPossibleScore());
+        IntStream.range(0, 16).forEach(r -> bowlingGame.roll(1));
+        assertTrue(bowlingGame.isMatchEnded());
+        assertEquals(bowlingGame.score(), bowlingGame.maxPossibleScore());
+    }
+
+    /**
+     * Test the best possible score matches playing out the game with every pin knocked down, at every point of random games
+     */
+    @Test
+    void testMaxPossibleScoreMatchesPlayingOut() {
+        Random random = new Random(1);
+        for (int g = 0; g < 2_000; g++) {
+            BowlingGame bowlingGame = new BowlingGame();
+            List<Integer> rolls = new ArrayList<>();
+            while (!bowlingGame.isMatchEnded()) {
+                int pins = random.nextInt(11);
+                try {
+                    bowlingGame.roll(pins);
+                } catch (IllegalArgumentException ex) {
+                    continue;
+                }
+                rolls.add(pins);
+                BowlingGame playedOut = new BowlingGame();
+                rolls.forEach(playedOut::roll);
+                while (!playedOut.isMatchEnded()) {
+                    for (int best = 10; best >= 0; best--) {
+                        try {
+                            playedOut.roll(best);
+                            break;
+                        } catch (IllegalArgumentException ex) {
+                            // too many pins, try one fewer
+                        }
+                    }
+                }
+                assertEquals(playedOut.score(), bowlingGame.maxPossibleScore());
+            }
+        }
+    }
+
+    /**
+     * Test projecting a final score from the bowler's average
+     */
+    @Test
+    void testProjectedScore() {
+        BowlingGame bowlingGame = new BowlingGame();
+        assertEquals(150, bowlingGame.projectedScore(150));
+        bowlingGame.roll(3);
+        assertEquals(150, bowlingGame.projectedScore(150));
+        bowlingGame.roll(4);
+        assertEquals(7 + 135, bowlingGame.projectedScore(150));
+        // can't project above what is still possible, or below what has been scored
+        assertEquals(bowlingGame.maxPossibleScore(), bowlingGame.projectedScore(1000));
+        assertEquals(7, bowlingGame.projectedScore(0));
+    }
+
+    /**
+     * Test the non-throwing roll gives the same outcome as the throwing one
+     */
+    @Test
+    void testTryRoll() {
+        BowlingGame bowlingGame = new BowlingGame();
+        assertEquals(RollStatus.NEGATIVE_PINS, bowlingGame.tryRoll(-1));
+        assertEquals(RollStatus.TOO_MANY_PINS, bowlingGame.tryRoll(11));
+        assertEquals(RollStatus.ACCEPTED, bowlingGame.tryRoll(7));
+        assertEquals(RollStatus.FRAME_OVERFLOW, bowlingGame.tryRoll(4));
+        assertEquals(7, bowlingGame.score());
+        for (int i = 0; i < 19; i++) {
+            assertTrue(bowlingGame.tryRoll(0).isAccepted());
+        }
+        assertEquals(RollStatus.MATCH_ENDED, bowlingGame.tryRoll(0));
+        assertEquals(7, bowlingGame.score());
+        try {
+            bowlingGame.roll(0);
+            fail(String.format("Expected \"%s\"", RollStatus.MATCH_ENDED.getMessage()));
+        } catch (IllegalStateException ex) {
+            assertEquals("Match has ended", ex.getMessage());
+        }
+    }
+
+    /**
+     * Test the running total under each frame, and when it becomes final
+     */
+    @Test
+    void testCumulativeScores() {
+        int[] rolls = {10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1};
+        int[] expected = {20, 39, 48, 66, 74, 84, 90, 120, 148, 167};
+        BowlingGame bowlingGame = new BowlingGame();
+        bowlingGame.roll(10);
+        assertEquals(0, bowlingGame.getFinishedFrameCount());
+        bowlingGame.roll(7);
+        assertEquals(17, bowlingGame.getCumulativeScore(0));
+        assertEquals(0, bowlingGame.getFinishedFrameCount());
+        bowlingGame.roll(3);
+        assertEquals(1, bowlingGame.getFinishedFrameCount());
+        assertEquals(20, bowlingGame.getCumulativeScore(0));
+        assertEquals(30, bowlingGame.getCumulativeScore(1));
+        for (int i = 3; i < rolls.length; i++) {
+            bowlingGame.roll(rolls[i]);
+            assertEquals(bowlingGame.score(), bowlingGame.getCumulativeScore(Math.min(bowlingGame.getFrameIndex(), 9)));
+        }
+        int[] cumulative = new int[10];
+        assertEquals(10, bowlingGame.getCumulativeScores(cumulative));
+        assertArrayEquals(expected, cumulative);
+        assertThrows(IndexOutOfBoundsException.class, () -> bowlingGame.getCumulativeScore(10));
+    }
+
+    /**
+     * Test the running totals after back to back strikes, where a roll adds to three frames at once
+     */
+    @Test
+    void testCumulativeScoresDoubleStrike() {
+        BowlingGame bowlingGame = new BowlingGame();
+        bowlingGame.roll(10);
+        bowlingGame.roll(10);
+        bowlingGame.roll(4);
+        assertEquals(1, bowlingGame.getFinishedFrameCount());
+        assertEquals(24, bowlingGame.getCumulativeScore(0));
+        assertEquals(38, bowlingGame.getCumulativeScore(1));
+        assertEquals(42, bowlingGame.getCumulativeScore(2));
+        bowlingGame.roll(5);
+        assertEquals(3, bowlingGame.getFinishedFrameCount());
+        assertEquals(43, bowlingGame.getCumulativeScore(1));
+        assertEquals(52, bowlingGame.getCumulativeScore(2));
+    }
+
+    private static BowlingGame play(int... rolls) {
+        BowlingGame bowlingGame = new BowlingGame();
+        for (int pins : rolls) {
+            bowlingGame.roll(pins);
+        }
+        return bowlingGame;
+    }
+
+    private static void assertSameGame(BowlingGame expected, BowlingGame actual) {
+        assertEquals(expected.score(), actual.score());
+        assertEquals(expected.getRollCount(), actual.getRollCount());
+        assertEquals(expected.getFrameIndex(), actual.getFrameIndex());
+        assertEquals(expected.isMatchEnded(), actual.isMatchEnded());
+        assertEquals(expected.getFinishedFrameCount(), actual.getFinishedFrameCount());
+        assertEquals(expected.maxPossibleScore(), actual.maxPossibleScore());
+        for (int f = 0; f < 10; f++) {
+            assertEquals(expected.getCumulativeScore(f), actual.getCumulativeScore(f));
+        }
+    }
+
+    /**
+     * Test undoing bowls one at a time, back through a strike bonus to an empty game, then nothing left to undo
+     */
+    @Test
+    void testUndo() {
+        BowlingGame bowlingGame = play(10, 10, 4);
+        bowlingGame.undo();
+        assertSameGame(play(10, 10), bowlingGame);
+        bowlingGame.undo();
+        bowlingGame.undo();
+        assertSameGame(new BowlingGame(), bowlingGame);
+        final String errorText = "No rolls to undo";
+        try {
+            bowlingGame.undo();
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalStateException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+    }
+
+    /**
+     * Test undoing the last bowl of a finished game lets it be bowled again
+     */
+    @Test
+    void testUndoEndOfMatch() {
+        BowlingGame bowlingGame = play(10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10);
+        bowlingGame.undo();
+        assertFalse(bowlingGame.isMatchEnded());
+        assertEquals(290, bowlingGame.score());
+        bowlingGame.roll(10);
+        assertEquals(300, bowlingGame.score());
+    }
+
+    /**
+     * Test a 9 corrected to a strike moves the following bowls into later frames
+     */
+    @Test
+    void testCorrectRollMovesFrames() {
+        BowlingGame bowlingGame = play(3, 4, 9, 0, 5, 5, 2);
+        bowlingGame.correctRoll(2, 10);
+        assertSameGame(play(3, 4, 10, 0, 5, 5, 2), bowlingGame);
+        bowlingGame.correctRoll(0, 0);
+        assertSameGame(play(0, 4, 10, 0, 5, 5, 2), bowlingGame);
+    }
+
+    /**
+     * Test every correction of every bowl, in a few games, ends up the same as bowling the corrected game from scratch
+     */
+    @Test
+    void testCorrectRollMatchesReplaying() {
+        int[][] games = {
+                {10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1},
+                {10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10},
+                {5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5, 5},
+                {1, 2, 3, 4, 10, 10},
+        };
+        for (int[] rolls : games) {
+            for (int i = 0; i < rolls.length; i++) {
+                for (int pins = 0; pins <= 10; pins++) {
+                    int[] corrected = rolls.clone();
+                    corrected[i] = pins;
+                    BowlingGame expected = new BowlingGame();
+                    boolean valid = true;
+                    for (int roll : corrected) {
+                        if (!expected.tryRoll(roll).isAccepted()) {
+                            valid = false;
+                            break;
+                        }
+                    }
+                    BowlingGame bowlingGame = play(rolls);
+                    if (valid) {
+                        bowlingGame.correctRoll(i, pins);
+                        assertSameGame(expected, bowlingGame);
+                    } else {
+                        int rollIndex = i;
+                        int correction = pins;
+                        assertThrows(RuntimeException.class, () -> bowlingGame.correctRoll(rollIndex, correction));
+                        assertSameGame(play(rolls), bowlingGame);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sanity check - a correction that makes a later bowl impossible is refused and changes nothing
+     */
+    @Test
+    void testCorrectRollRefused() {
+        final String errorText = "Cannot Bowl More Than 10 pins total for a frame";
+        BowlingGame bowlingGame = play(3, 4, 2, 7);
+        try {
+            bowlingGame.correctRoll(2, 5);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        assertSameGame(play(3, 4, 2, 7), bowlingGame);
+        assertThrows(IllegalArgumentException.class, () -> bowlingGame.correctRoll(0, 256));
+        assertThrows(IndexOutOfBoundsException.class, () -> bowlingGame.correctRoll(4, 1));
+        assertSameGame(play(3, 4, 2, 7), bowlingGame);
+    }
+}
@@ -0,0 +1,83 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BowlingMatchTest {
+
+    /**
+     * Test bowlers take turns a frame at a time, across a two game series
+     */
+    @Test
+    void testTurnsAndSeries() {
+        BowlingMatch match = new BowlingMatch(2, 2);
+        for (int game = 0; game < 2; game++) {
+            for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+                assertEquals(game, match.getCurrentGame());
+                assertEquals(0, match.getCurrentBowler());
+                match.roll(10);
+                if (frame == BowlingGame.maxFrames - 1) {
+                    match.roll(10);
+                    match.roll(10);
+                }
+                assertEquals(1, match.getCurrentBowler());
+                match.roll(4);
+                match.roll(4);
+            }
+        }
+        assertTrue(match.isMatchEnded());
+        assertEquals(300, match.score(0));
+        assertEquals(600, match.seriesScore(0));
+        assertEquals(80, match.score(1));
+        assertEquals(160, match.seriesScore(1));
+        assertThrows(IllegalStateException.class, () -> match.roll(1));
+    }
+
+    /**
+     * Sanity check - a bad roll is refused and it is still that bowler's turn
+     */
+    @Test
+    void testBadRoll() {
+        BowlingMatch match = new BowlingMatch(3, 1);
+        match.roll(6);
+        assertThrows(IllegalArgumentException.class, () -> match.roll(5));
+        assertEquals(0, match.getCurrentBowler());
+        match.roll(4);
+        assertEquals(1, match.getCurrentBowler());
+        assertEquals(10, match.score(0));
+    }
+
+    /**
+     * Test the leaderboard against sorting every bowler, after every roll of a random match
+     */
+    @Test
+    void testTopBowlers() {
+        Random random = new Random(5);
+        int bowlers = 40;
+        BowlingMatch match = new BowlingMatch(bowlers, 3);
+        int[] top = new int[bowlers];
+        while (!match.isMatchEnded()) {
+            try {
+                match.roll(random.nextInt(11));
+            } catch (IllegalArgumentException ex) {
+                continue;
+            }
+            Integer[] sorted = IntStream.range(0, bowlers).boxed()
+                    .sorted(Comparator.comparingInt((Integer b) -> -match.seriesScore(b)).thenComparingInt(b -> b))
+                    .toArray(Integer[]::new);
+            for (int k : new int[]{0, 1, 5, bowlers, bowlers + 3}) {
+                int found = match.topBowlers(k, top);
+                assertEquals(Math.min(k, bowlers), found);
+                for (int i = 0; i < found; i++) {
+                    assertEquals(sorted[i], top[i], () -> Arrays.toString(top));
+                }
+            }
+        }
+    }
+}
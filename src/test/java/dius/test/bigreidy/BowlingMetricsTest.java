@@ -0,0 +1,130 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BowlingMetricsTest {
+
+    /**
+     * Test every value lands in a bucket whose top is within an eighth of it
+     */
+    @Test
+    void testHistogramBuckets() {
+        long[] values = {0, 1, 7, 8, 9, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int bucket = BowlingMetrics.Histogram.bucketOf(value);
+            long highest = BowlingMetrics.Histogram.highestInBucket(bucket);
+            assertTrue(highest >= value, "bucket too low for " + value);
+            assertTrue(highest - value <= value / 8, "bucket too wide for " + value);
+            if (bucket > 0) {
+                assertTrue(BowlingMetrics.Histogram.highestInBucket(bucket - 1) < value, "bucket too high for " + value);
+            }
+        }
+    }
+
+    @Test
+    void testHistogramPercentiles() {
+        BowlingMetrics.Histogram histogram = new BowlingMetrics.Histogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        histogram.record(1_000_000);
+        assertEquals(1001, histogram.count());
+        assertEquals(1_000_000, histogram.max());
+        long median = histogram.valueAtPercentile(50);
+        assertTrue(median >= 501 && median <= 501 + 501 / 8, "median was " + median);
+        long p99 = histogram.valueAtPercentile(99);
+        assertTrue(p99 >= 991 && p99 <= 991 + 991 / 8, "99th was " + p99);
+        assertEquals(1_000_000, histogram.valueAtPercentile(100));
+    }
+
+    /**
+     * Test the registry counts rolls, rejections by reason, and live games
+     */
+    @Test
+    void testRegistryMetrics() {
+        BowlingMetrics metrics = new BowlingMetrics();
+        GameRegistry registry = new GameRegistry(null, null, metrics);
+        registry.start(1);
+        registry.start(2);
+        registry.start(2);
+        registry.roll(1, 6);
+        assertThrows(IllegalArgumentException.class, () -> registry.roll(1, 5));
+        assertThrows(IllegalArgumentException.class, () -> registry.roll(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> registry.roll(1, 11));
+        for (int i = 0; i < 20; i++) {
+            registry.roll(2, 0);
+        }
+        assertThrows(IllegalStateException.class, () -> registry.roll(2, 0));
+        registry.score(1);
+        registry.remove(1);
+
+        assertEquals(21, metrics.getRollCount());
+        assertEquals(1, metrics.getScoreCount());
+        assertEquals(1, metrics.getRejectedFrameOverflow());
+        assertEquals(1, metrics.getRejectedNegativePins());
+        assertEquals(1, metrics.getRejectedTooManyPins());
+        assertEquals(1, metrics.getRejectedMatchEnded());
+        assertEquals(1, metrics.getLiveGames());
+        assertTrue(metrics.getRollLatencyMax() >= metrics.getRollLatency99th());
+
+        Map<String, Long> reported = new HashMap<>();
+        metrics.report(reported::put);
+        assertEquals(21L, reported.get("roll.count"));
+        assertEquals(1L, reported.get("rejected.matchEnded"));
+        assertEquals(1L, reported.get("liveGames"));
+        assertEquals(1L, reported.get("rejected.tooManyPins"));
+        assertEquals(0L, reported.get("rejected.impossiblePins"));
+    }
+
+    /**
+     * Test every rejection reason has a getter, and rolls for ids with no game are counted too
+     */
+    @Test
+    void testEveryRejectionCounted() {
+        BowlingMetrics metrics = new BowlingMetrics();
+        GameRegistry registry = new GameRegistry(null, null, metrics);
+        metrics.rejected(RollStatus.FRAME_COMPLETE);
+        metrics.rejected(RollStatus.IMPOSSIBLE_PINS);
+        metrics.rejected(RollStatus.IMPOSSIBLE_PINS);
+        String errorText = "No game for id 4";
+        try {
+            registry.roll(4, 3);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+
+        assertEquals(1, metrics.getRejectedFrameComplete());
+        assertEquals(2, metrics.getRejectedImpossiblePins());
+        assertEquals(1, metrics.getRejectedUnknownGame());
+        assertEquals(0, metrics.getRollCount());
+        Map<String, Long> reported = new HashMap<>();
+        metrics.report(reported::put);
+        assertEquals(1L, reported.get("rejected.unknownGame"));
+        assertEquals(1L, reported.get("rejected.frameComplete"));
+    }
+
+    @Test
+    void testJmx() throws Exception {
+        BowlingMetrics metrics = new BowlingMetrics();
+        metrics.gameAdded();
+        String name = "dius.test.bigreidy:type=BowlingMetrics,name=testJmx";
+        metrics.register(name);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1L, server.getAttribute(new ObjectName(name), "LiveGames"));
+            assertThrows(IllegalArgumentException.class, () -> metrics.register(name));
+        } finally {
+            server.unregisterMBean(new ObjectName(name));
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BowlingScorerTest {
+
+    /**
+     * Test the examples from the brief, plus a perfect game and an unfinished strike
+     */
+    @Test
+    void testScoreAll() {
+        int[] rolls = {4, 6, 5, 0, 10, 5, 4, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 7};
+        int[] gameOffsets = {0, 4, 7, 19};
+        int[] out = new int[gameOffsets.length];
+        BowlingScorer.scoreAll(rolls, gameOffsets, out);
+        assertArrayEquals(new int[]{20, 28, 300, 24}, out);
+    }
+
+    /**
+     * Test the byte packed rolls give the same as the int ones
+     */
+    @Test
+    void testScoreAllBytes() {
+        byte[] rolls = {4, 6, 5, 0, 10, 5, 4};
+        int[] out = new int[2];
+        BowlingScorer.scoreAll(rolls, new int[]{0, 4}, out);
+        assertArrayEquals(new int[]{20, 28}, out);
+    }
+
+    /**
+     * Test random legal games score the same as playing them through BowlingGame
+     */
+    @Test
+    void testMatchesBowlingGame() {
+        Random random = new Random(7);
+        int games = 500;
+        int[] rolls = new int[games * BowlingGame.maxRolls];
+        int[] gameOffsets = new int[games];
+        int[] expected = new int[games];
+        int count = 0;
+        for (int g = 0; g < games; g++) {
+            gameOffsets[g] = count;
+            BowlingGame bowlingGame = new BowlingGame();
+            int stopAfter = random.nextInt(BowlingGame.maxRolls + 1);
+            int packed = 0;
+            int bowls = 0;
+            int frame = 0;
+            while (!bowlingGame.isMatchEnded() && count - gameOffsets[g] < stopAfter) {
+                boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+                int pins = random.nextInt(Frame.pinsStanding(lastFrame, packed, bowls) + 1);
+                bowlingGame.roll(pins);
+                rolls[count++] = pins;
+                packed = Frame.withRoll(packed, bowls++, pins);
+                if (!Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                    frame++;
+                    packed = 0;
+                    bowls = 0;
+                }
+            }
+            expected[g] = bowlingGame.score();
+        }
+        int[] out = new int[games];
+        BowlingScorer.scoreAll(Arrays.copyOf(rolls, count), gameOffsets, out);
+        assertArrayEquals(expected, out);
+    }
+
+    /**
+     * Sanity check - an invalid game says which game it was
+     */
+    @Test
+    void testInvalidGame() {
+        final String errorText = "Game 1: Cannot Bowl More Than 10 pins total for a frame";
+        int[] rolls = {1, 2, 5, 6};
+        try {
+            BowlingScorer.scoreAll(rolls, new int[]{0, 2}, new int[2]);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+    }
+
+    /**
+     * Sanity check - rolls after the match has ended
+     */
+    @Test
+    void testRollAfterMatchEnded() {
+        int[] rolls = new int[21];
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> BowlingScorer.scoreAll(rolls, new int[]{0}, new int[1]));
+        assertEquals("Game 0: Match has ended", ex.getMessage());
+    }
+
+    /**
+     * Test scoring in parallel gives the same scores as one at a time, and the totals add up,
+     * no matter how many threads it is split across
+     */
+    @Test
+    void testScoreAllParallel() {
+        Random random = new Random(11);
+        int games = 20_000;
+        int[] rolls = new int[games * BowlingGame.maxRolls];
+        int[] gameOffsets = new int[games];
+        int count = 0;
+        for (int g = 0; g < games; g++) {
+            gameOffsets[g] = count;
+            int packed = 0;
+            int bowls = 0;
+            for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+                boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+                while (Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                    int pins = random.nextInt(Frame.pinsStanding(lastFrame, packed, bowls) + 1);
+                    rolls[count++] = pins;
+                    packed = Frame.withRoll(packed, bowls++, pins);
+                }
+                packed = 0;
+                bowls = 0;
+            }
+        }
+        rolls = Arrays.copyOf(rolls, count);
+        int[] expected = new int[games];
+        BowlingScorer.scoreAll(rolls, gameOffsets, expected);
+
+        ScoreSummary summary = BowlingScorer.scoreAllParallel(rolls, gameOffsets);
+        assertArrayEquals(expected, summary.getScores());
+        assertEquals(games, summary.getGameCount());
+        assertEquals(Arrays.stream(expected).asLongStream().sum(), summary.getTotal());
+        assertEquals(Arrays.stream(expected).max().getAsInt(), summary.getMax());
+        assertEquals((double) summary.getTotal() / games, summary.getMean());
+        long counted = 0;
+        for (int score = 0; score <= BowlingGame.maxScore; score++) {
+            counted += summary.getCount(score);
+        }
+        assertEquals(games, counted);
+
+        ScoreSummary singleThreaded = BowlingScorer.scoreAllParallel(rolls, gameOffsets, new ForkJoinPool(1));
+        assertArrayEquals(summary.getScores(), singleThreaded.getScores());
+        assertEquals(summary.getTotal(), singleThreaded.getTotal());
+        for (int score = 0; score <= BowlingGame.maxScore; score++) {
+            assertEquals(summary.getCount(score), singleThreaded.getCount(score));
+        }
+    }
+
+    /**
+     * Test scoring nothing in parallel
+     */
+    @Test
+    void testScoreAllParallelNoGames() {
+        ScoreSummary summary = BowlingScorer.scoreAllParallel(new int[0], new int[0]);
+        assertEquals(0, summary.getGameCount());
+        assertEquals(0, summary.getMean());
+        assertEquals(0, summary.getMax());
+    }
+}
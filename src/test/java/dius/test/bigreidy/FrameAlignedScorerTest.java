@@ -0,0 +1,85 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameAlignedScorerTest {
+
+    /**
+     * Plays a random legal game to the end, biased towards strikes and spares so the bonuses get a workout
+     */
+    private static int randomGame(Random random, int[] rolls, int offset) {
+        int count = offset;
+        for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+            boolean lastFrame = frame == BowlingGame.maxFrames - 1;
+            int packed = 0;
+            int bowls = 0;
+            while (Frame.canBowlAgain(lastFrame, packed, bowls)) {
+                int standing = Frame.pinsStanding(lastFrame, packed, bowls);
+                int pins = random.nextInt(3) == 0 ? standing : random.nextInt(standing + 1);
+                packed = Frame.withRoll(packed, bowls++, pins);
+                rolls[count++] = pins;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Test the boxes give exactly the same scores as the roll by roll scorer
+     */
+    @Test
+    void testMatchesBowlingScorer() {
+        int games = 5000;
+        Random random = new Random(22);
+        int[] rolls = new int[games * BowlingGame.maxRolls];
+        int[] gameOffsets = new int[games];
+        int count = 0;
+        for (int g = 0; g < games; g++) {
+            gameOffsets[g] = count;
+            count = randomGame(random, rolls, count);
+        }
+        rolls = Arrays.copyOf(rolls, count);
+        int[] expected = new int[games];
+        BowlingScorer.scoreAll(rolls, gameOffsets, expected);
+        int[] scores = new int[games];
+        FrameAlignedScorer.scoreCompleted(rolls, gameOffsets, scores);
+        assertArrayEquals(expected, scores);
+    }
+
+    @Test
+    void testKnownGames() {
+        int[] rolls = {
+                10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0,
+                10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1,
+                0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10, 10, 9, 1,
+        };
+        int[] scores = new int[4];
+        FrameAlignedScorer.scoreCompleted(rolls, new int[]{0, 12, 32, 49}, scores);
+        assertArrayEquals(new int[]{300, 0, 167, 49}, scores);
+    }
+
+    /**
+     * Sanity check - only legal, completed games can be laid out
+     */
+    @Test
+    void testInvalidGames() {
+        final String errorText = "Game 1: Game has not finished";
+        byte[] boxes = new byte[2 * FrameAlignedScorer.boxCount];
+        int[] rolls = {10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10};
+        try {
+            FrameAlignedScorer.layout(rolls, new int[]{0, 12}, boxes);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        IllegalArgumentException ex = assertThrows(IllegalArgumentException.class,
+                () -> FrameAlignedScorer.layout(new int[]{7, 4}, new int[]{0}, boxes));
+        assertEquals("Game 0: Cannot Bowl More Than 10 pins total for a frame", ex.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> FrameAlignedScorer.scoreAll(boxes, 3, new int[3]));
+    }
+}
@@ -317,4 +317,50 @@ class FrameTest {
         assertEquals(secondScore, frameScore.get(1));
         assertEquals(thirdScore, frameScore.get(2));
     }
-}
\ No newline at end of file
+
+    /**
+     * Check reading bowls without copying the scores out
+     */
+    @Test
+    public void testRollAtAndCount() {
+        Frame frame = new Frame(true);
+        assertEquals(0, frame.rollCount());
+        frame.bowl(10);
+        frame.bowl(0);
+        frame.bowl(7);
+        assertEquals(3, frame.rollCount());
+        assertEquals(10, frame.rollAt(0));
+        assertEquals(0, frame.rollAt(1));
+        assertEquals(7, frame.rollAt(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> frame.rollAt(3));
+    }
+
+    /**
+     * Sanity check last frame - after a strike then an open bowl, the third ball is limited to what is left standing
+     */
+    @Test
+    public void testLastFrameStrikeThenOpenMaximumPinTotal() {
+        Frame frame = new Frame(true);
+        frame.bowl(10);
+        frame.bowl(3);
+        assertThrows(IllegalArgumentException.class, () -> frame.bowl(8));
+        frame.bowl(7);
+        assertFalse(frame.canBowlAgain());
+    }
+
+    /**
+     * Test the non-throwing bowl reports why a bowl was refused, and leaves the frame alone
+     */
+    @Test
+    public void testTryBowl() {
+        Frame frame = new Frame(false);
+        assertEquals(RollStatus.NEGATIVE_PINS, frame.tryBowl(-1));
+        assertEquals(RollStatus.TOO_MANY_PINS, frame.tryBowl(11));
+        assertEquals(RollStatus.ACCEPTED, frame.tryBowl(6));
+        assertEquals(RollStatus.FRAME_OVERFLOW, frame.tryBowl(5));
+        assertEquals(1, frame.rollCount());
+        assertEquals(RollStatus.ACCEPTED, frame.tryBowl(4));
+        assertEquals(RollStatus.FRAME_COMPLETE, frame.tryBowl(0));
+        assertEquals("Cannot bowl again for this frame", RollStatus.FRAME_COMPLETE.getMessage());
+    }
+}
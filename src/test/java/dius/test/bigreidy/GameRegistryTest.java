@@ -0,0 +1,202 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameRegistryTest {
+
+    /**
+     * Test a game can be started, rolled and scored by id
+     */
+    @Test
+    void testRollAndScore() {
+        GameRegistry registry = new GameRegistry();
+        registry.start(3);
+        registry.roll(3, 10);
+        registry.roll(3, 5);
+        registry.roll(3, 4);
+        assertEquals(28, registry.score(3));
+        assertFalse(registry.isMatchEnded(3));
+        assertEquals(1, registry.size());
+        assertTrue(registry.remove(3));
+        assertFalse(registry.contains(3));
+    }
+
+    /**
+     * Sanity check - a game that doesn't exist
+     */
+    @Test
+    void testUnknownGame() {
+        final String errorText = "No game for id 7";
+        GameRegistry registry = new GameRegistry();
+        try {
+            registry.roll(7, 1);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+    }
+
+    /**
+     * Sanity check - a bad roll is rejected and leaves the game as it was
+     */
+    @Test
+    void testBadRollLeavesGameAlone() {
+        GameRegistry registry = new GameRegistry();
+        registry.start(1);
+        registry.roll(1, 6);
+        assertThrows(IllegalArgumentException.class, () -> registry.roll(1, 5));
+        registry.roll(1, 4);
+        assertEquals(10, registry.score(1));
+    }
+
+    /**
+     * Test many lanes rolled from many threads at once, all ending in perfect games,
+     * while readers check they only ever see whole strikes added up
+     */
+    @Test
+    void testConcurrentLanes() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        int lanes = 64;
+        for (int lane = 0; lane < lanes; lane++) {
+            registry.start(lane);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicBoolean rolling = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int r = 0; r < 2; r++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                while (rolling.get()) {
+                    for (int lane = 0; lane < lanes; lane++) {
+                        int score = registry.score(lane);
+                        assertEquals(0, score % 10);
+                        if (registry.isMatchEnded(lane)) assertEquals(300, registry.score(lane));
+                    }
+                }
+                return null;
+            }));
+        }
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < 6; w++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int lane = 0; lane < lanes; lane++) {
+                    for (int r = 0; r < 2; r++) {
+                        registry.roll(lane, 10);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> writer : writers) writer.get();
+        rolling.set(false);
+        for (Future<?> reader : readers) reader.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        for (int lane = 0; lane < lanes; lane++) {
+            assertTrue(registry.isMatchEnded(lane));
+            assertEquals(300, registry.score(lane));
+        }
+    }
+
+    /**
+     * Test lanes being removed and restarted while they are rolled on never leaves a stale score
+     * on the leaderboard, or a removed lane on it
+     */
+    @Test
+    void testRestartWhileRolling() throws Exception {
+        int lanes = 2;
+        Leaderboard leaderboard = new Leaderboard(lanes);
+        GameRegistry registry = new GameRegistry(null, leaderboard);
+        for (int lane = 0; lane < lanes; lane++) {
+            registry.start(lane);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean rolling = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < 3; w++) {
+            writers.add(executor.submit(() -> {
+                while (rolling.get()) {
+                    for (int lane = 0; lane < lanes; lane++) {
+                        try {
+                            registry.tryRoll(lane, 1);
+                        } catch (IllegalArgumentException ex) {
+                            assertEquals("No game for id " + lane, ex.getMessage());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        Future<?> restarter = executor.submit(() -> {
+            for (int i = 0; i < 200_000; i++) {
+                int lane = i % lanes;
+                if (i % 3 == 0) {
+                    registry.remove(lane);
+                } else {
+                    registry.start(lane);
+                }
+            }
+            return null;
+        });
+        restarter.get();
+        rolling.set(false);
+        for (Future<?> writer : writers) writer.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        for (int lane = 0; lane < lanes; lane++) {
+            int expected = registry.contains(lane) ? registry.score(lane) : -1;
+            assertEquals(expected, leaderboard.score(lane));
+        }
+    }
+
+    /**
+     * Sanity check - a removed game takes no more rolls
+     */
+    @Test
+    void testRollAfterRemove() {
+        final String errorText = "No game for id 4";
+        GameRegistry registry = new GameRegistry();
+        registry.start(4);
+        registry.roll(4, 3);
+        registry.remove(4);
+        try {
+            registry.roll(4, 1);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+    }
+
+    /**
+     * Sanity check - a game id the leaderboard has no room for is refused before anything changes
+     */
+    @Test
+    void testIdOutsideLeaderboard() {
+        final String errorText = "Game id must be between 0 and 3";
+        Leaderboard leaderboard = new Leaderboard(4);
+        GameRegistry registry = new GameRegistry(null, leaderboard);
+        try {
+            registry.start(4);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        assertFalse(registry.contains(4));
+        assertThrows(IllegalArgumentException.class, () -> registry.tryRoll(-1, 5));
+        assertEquals(0, leaderboard.size());
+    }
+}
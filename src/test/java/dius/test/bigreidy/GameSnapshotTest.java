@@ -0,0 +1,190 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test a single game round trips through a buffer, and carries on from where it was
+     */
+    @Test
+    void testWriteAndRead() {
+        BowlingGame bowlingGame = new BowlingGame();
+        bowlingGame.roll(10);
+        bowlingGame.roll(7);
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.maxGameBytes);
+        GameSnapshot.write(buffer, 12, bowlingGame);
+        buffer.flip();
+
+        GameRegistry registry = new GameRegistry();
+        GameSnapshot.read(buffer, registry);
+        assertEquals(24, registry.score(12));
+        registry.roll(12, 3);
+        assertEquals(30, registry.score(12));
+    }
+
+    /**
+     * Test a whole registry round trips through a file, including finished and unstarted games
+     */
+    @Test
+    void testSaveAndLoad() throws IOException {
+        GameRegistry registry = new GameRegistry();
+        int games = 500;
+        for (int gameId = 0; gameId < games; gameId++) {
+            registry.start(gameId);
+            for (int r = 0; r < gameId % 22; r++) {
+                registry.roll(gameId, 5);
+            }
+        }
+        Path path = tempDir.resolve("games.snapshot");
+        assertEquals(games, GameSnapshot.save(registry, path));
+
+        GameRegistry restored = new GameRegistry();
+        assertEquals(games, GameSnapshot.load(path, restored));
+        assertEquals(games, restored.size());
+        for (int gameId = 0; gameId < games; gameId++) {
+            assertEquals(registry.score(gameId), restored.score(gameId));
+            assertEquals(registry.isMatchEnded(gameId), restored.isMatchEnded(gameId));
+        }
+    }
+
+    /**
+     * Sanity check - a snapshot whose state doesn't match its rolls is refused
+     */
+    @Test
+    void testMismatchedSnapshot() {
+        final String errorText = "Snapshot does not match its rolls";
+        ByteBuffer buffer = ByteBuffer.allocate(GameSnapshot.maxGameBytes);
+        buffer.putInt(1).put((byte) 1).put((byte) 3).put((byte) 0).put((byte) 10).flip();
+        try {
+            GameSnapshot.read(buffer, new GameRegistry());
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+    }
+
+    /**
+     * Sanity check - not a snapshot file
+     */
+    @Test
+    void testNotASnapshot() throws IOException {
+        Path path = tempDir.resolve("other");
+        Files.write(path, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        assertThrows(IllegalArgumentException.class, () -> GameSnapshot.load(path, new GameRegistry()));
+    }
+
+    /**
+     * Test saving over an older snapshot replaces it, and leaves no temporary file behind
+     */
+    @Test
+    void testSaveReplacesSnapshot() throws IOException {
+        Path path = tempDir.resolve("games.snapshot");
+        GameRegistry registry = new GameRegistry();
+        registry.start(1);
+        registry.roll(1, 4);
+        assertEquals(1, GameSnapshot.save(registry, path));
+        registry.roll(1, 5);
+        registry.start(2);
+        assertEquals(2, GameSnapshot.save(registry, path));
+
+        GameRegistry restored = new GameRegistry();
+        assertEquals(2, GameSnapshot.load(path, restored));
+        assertEquals(9, restored.score(1));
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    /**
+     * Test a snapshot taken while lanes are rolling, starting and removing games, moves the registry onto
+     * a new log, and the snapshot plus the new log rebuild exactly the games the registry ends up with.
+     * Every writer has done a thousand operations before the save starts and another thousand after it
+     * returns, so the save always overlaps them and both logs get records.
+     */
+    @Test
+    void testSaveSwitchesLogWhileRolling() throws Exception {
+        Path snapshot = tempDir.resolve("games.snapshot");
+        Path oldPath = tempDir.resolve("old.log");
+        Path newPath = tempDir.resolve("new.log");
+        int lanes = 16;
+        RollLog oldLog = new RollLog(oldPath);
+        RollLog newLog = new RollLog(newPath);
+        GameRegistry registry = new GameRegistry(oldLog);
+        for (int lane = 0; lane < lanes; lane++) {
+            registry.start(lane);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        int writerCount = 3;
+        int operations = 1_000;
+        AtomicBoolean rolling = new AtomicBoolean(true);
+        AtomicBoolean saved = new AtomicBoolean(false);
+        CountDownLatch beforeSave = new CountDownLatch(writerCount);
+        CountDownLatch afterSave = new CountDownLatch(writerCount);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < writerCount; w++) {
+            final int writer = w;
+            writers.add(executor.submit(() -> {
+                for (int i = 0, sinceSave = 0; rolling.get(); i++) {
+                    if (i == operations) beforeSave.countDown();
+                    if (saved.get() && sinceSave++ == operations) afterSave.countDown();
+                    int lane = i % lanes;
+                    if (writer == 0 && i % 7 == 0) {
+                        registry.remove(lane);
+                        continue;
+                    }
+                    try {
+                        if (registry.tryRoll(lane, 1) == RollStatus.MATCH_ENDED) registry.start(lane);
+                    } catch (IllegalArgumentException ex) {
+                        registry.start(lane);
+                    }
+                }
+                return null;
+            }));
+        }
+        assertTrue(beforeSave.await(10, TimeUnit.SECONDS));
+        assertSame(oldLog, GameSnapshot.save(registry, snapshot, newLog));
+        saved.set(true);
+        assertTrue(afterSave.await(10, TimeUnit.SECONDS));
+        rolling.set(false);
+        for (Future<?> writer : writers) writer.get();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        oldLog.close();
+        newLog.close();
+
+        assertTrue(Files.size(oldPath) > 0);
+        // every roll or start is logged, only writer 0's removes of games already gone are not
+        assertTrue(Files.size(newPath) >= (long) (writerCount - 1) * operations * RollLog.recordBytes);
+        GameRegistry restored = new GameRegistry();
+        GameSnapshot.load(snapshot, restored);
+        List<String> skipped = new ArrayList<>();
+        RollLog.rebuild(newPath, restored, (ex, offset) -> skipped.add(offset + ": " + ex.getMessage()));
+        assertEquals("[]", skipped.toString());
+        assertEquals(registry.size(), restored.size());
+        for (int lane = 0; lane < lanes; lane++) {
+            assertEquals(registry.contains(lane), restored.contains(lane));
+            if (registry.contains(lane)) assertEquals(registry.score(lane), restored.score(lane));
+        }
+    }
+}
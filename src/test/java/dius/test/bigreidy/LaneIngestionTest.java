@@ -0,0 +1,330 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LaneIngestionTest {
+
+    /**
+     * Test rolls for several lanes are applied in order, and the last score published is the final one
+     */
+    @Test
+    void testSubmitAppliesInOrder() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        Map<Integer, Integer> published = new ConcurrentHashMap<>();
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> published.put(gameId, score), 4);
+        int lanes = 10;
+        for (int lane = 0; lane < lanes; lane++) {
+            registry.start(lane);
+        }
+        for (int r = 0; r < 12; r++) {
+            for (int lane = 0; lane < lanes; lane++) {
+                ingestion.submit(lane, lane % 2 == 0 ? 10 : 4);
+            }
+        }
+        ingestion.close();
+        for (int lane = 0; lane < lanes; lane++) {
+            int expected = lane % 2 == 0 ? 300 : 48;
+            assertEquals(expected, registry.score(lane));
+            assertEquals(expected, published.get(lane));
+        }
+        assertEquals(0, ingestion.getRejectedRolls());
+    }
+
+    /**
+     * Test rolls after a game has ended are counted as rejected
+     */
+    @Test
+    void testRejectedRolls() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+        }, 32);
+        registry.start(1);
+        for (int r = 0; r < 22; r++) {
+            ingestion.submit(1, 1);
+        }
+        ingestion.submit(2, 1);
+        ingestion.close();
+        assertEquals(20, registry.score(1));
+        assertEquals(3, ingestion.getRejectedRolls());
+    }
+
+    /**
+     * Test a lane that has fallen behind refuses more events
+     */
+    @Test
+    void testBackPressure() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+            publishing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, 2);
+        registry.start(5);
+        assertTrue(ingestion.offer(5, 1));
+        assertTrue(publishing.await(5, TimeUnit.SECONDS));
+        assertTrue(ingestion.offer(5, 1));
+        assertTrue(ingestion.offer(5, 1));
+        assertFalse(ingestion.offer(5, 1));
+        release.countDown();
+        ingestion.close();
+        assertEquals(3, registry.score(5));
+    }
+
+    /**
+     * Test reading events off a stream, as a lane controller would send them
+     */
+    @Test
+    void testIngestStream() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        registry.start(9);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeEvent(out, 9, 10);
+            writeEvent(out, 9, 5);
+            writeEvent(out, 9, 4);
+        }
+        assertEquals(3 * LaneIngestion.eventBytes, bytes.size());
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+        }, 8);
+        ingestion.ingest(new ByteArrayInputStream(bytes.toByteArray())).get(5, TimeUnit.SECONDS);
+        ingestion.close();
+        assertEquals(28, registry.score(9));
+    }
+
+    private static void writeEvent(DataOutputStream out, int gameId, int noOfPins) throws IOException {
+        out.writeInt(gameId);
+        out.writeByte(noOfPins);
+    }
+
+    /**
+     * Sanity check - nothing can be sent once closed
+     */
+    @Test
+    void testClosed() throws Exception {
+        LaneIngestion ingestion = new LaneIngestion(new GameRegistry(), (gameId, score, matchEnded) -> {
+        }, 1);
+        ingestion.close();
+        assertThrows(IllegalStateException.class, () -> ingestion.offer(1, 1));
+    }
+
+    /**
+     * Test a lane stops once its game has ended, and a new one starts for the next game on that id
+     */
+    @Test
+    void testLaneRetiresWhenGameEnds() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        WatchedExecutor executor = new WatchedExecutor();
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+        }, 16, executor);
+        registry.start(1);
+        for (int r = 0; r < 12; r++) {
+            ingestion.submit(1, 10);
+        }
+        executor.awaitFinished(1);
+        assertEquals(0, ingestion.getActiveLanes());
+        assertEquals(300, registry.score(1));
+
+        registry.start(1);
+        ingestion.submit(1, 7);
+        ingestion.close();
+        assertEquals(7, registry.score(1));
+    }
+
+    /**
+     * Test a lane for a game that isn't in the registry doesn't stay around
+     */
+    @Test
+    void testLaneRetiresForUnknownGame() throws Exception {
+        WatchedExecutor executor = new WatchedExecutor();
+        LaneIngestion ingestion = new LaneIngestion(new GameRegistry(), (gameId, score, matchEnded) -> {
+        }, 4, executor);
+        ingestion.submit(2, 1);
+        executor.awaitFinished(1);
+        assertEquals(0, ingestion.getActiveLanes());
+        assertEquals(1, ingestion.getRejectedRolls());
+        ingestion.close();
+    }
+
+    /**
+     * Test every roll sent before close is applied or rejected, even for lanes started while ingestion is closing.
+     * The senders keep going until they find ingestion closed, and lanes keep retiring as their games end,
+     * so close always lands while new lanes are being started.
+     */
+    @Test
+    void testCloseWhileStartingLanes() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        int games = 2_000;
+        for (int gameId = 0; gameId < games; gameId++) {
+            registry.start(gameId);
+        }
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+        }, 4);
+        ExecutorService senders = Executors.newFixedThreadPool(2);
+        CountDownLatch sending = new CountDownLatch(2);
+        List<Future<Integer>> sent = new ArrayList<>();
+        for (int t = 0; t < 2; t++) {
+            final int first = t;
+            sent.add(senders.submit(() -> {
+                int count = 0;
+                try {
+                    for (int gameId = first; ; gameId = (gameId + 2) % games) {
+                        ingestion.submit(gameId, 1);
+                        if (count++ == games) sending.countDown();
+                    }
+                } catch (IllegalStateException ex) {
+                    // closed part way through
+                }
+                return count;
+            }));
+        }
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        ingestion.close();
+        int total = 0;
+        for (Future<Integer> count : sent) total += count.get(5, TimeUnit.SECONDS);
+        senders.shutdown();
+        long applied = 0;
+        for (int gameId = 0; gameId < games; gameId++) {
+            applied += registry.score(gameId);
+        }
+        assertEquals(total, applied + ingestion.getRejectedRolls());
+    }
+
+    /**
+     * Test a lane controller connection that fails part way through an event is reported by serve
+     */
+    @Test
+    void testServeReportsFailedConnection() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        registry.start(9);
+        WatchedExecutor executor = new WatchedExecutor();
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+        }, 8, executor);
+        ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        Future<?> serving = ingestion.serve(serverSocket);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+             DataOutputStream out = new DataOutputStream(socket.getOutputStream())) {
+            writeEvent(out, 9, 10);
+            out.writeInt(9);
+        }
+        executor.awaitFailed(1);
+        ingestion.close();
+        try {
+            serving.get(5, TimeUnit.SECONDS);
+            fail("Expected the failed connection to be reported");
+        } catch (ExecutionException ex) {
+            assertEquals("Lane controller connection failed", ex.getCause().getMessage());
+            assertInstanceOf(EOFException.class, ex.getCause().getCause());
+        }
+        assertEquals(10, registry.score(9));
+    }
+
+    /**
+     * Test a publisher that throws doesn't stop its lane, and a lane whose task dies still retires,
+     * so later rolls start a new lane rather than queuing where nothing reads them, and close returns
+     */
+    @Test
+    void testPublisherFailures() throws Exception {
+        GameRegistry registry = new GameRegistry();
+        WatchedExecutor executor = new WatchedExecutor();
+        AtomicInteger publishes = new AtomicInteger();
+        CountDownLatch firstPublish = new CountDownLatch(1);
+        LaneIngestion ingestion = new LaneIngestion(registry, (gameId, score, matchEnded) -> {
+            int publish = publishes.incrementAndGet();
+            if (publish == 1) {
+                firstPublish.countDown();
+                throw new IllegalStateException("Scoreboard is down");
+            }
+            if (publish == 2) throw new AssertionError("Publisher bug");
+        }, 1, executor);
+        registry.start(3);
+        ingestion.submit(3, 1);
+        assertTrue(firstPublish.await(5, TimeUnit.SECONDS));
+        ingestion.submit(3, 2);
+        executor.awaitFailed(1);
+        assertEquals(0, ingestion.getActiveLanes());
+
+        for (int r = 0; r < 3; r++) {
+            ingestion.submit(3, 1);
+        }
+        ingestion.close();
+        assertTrue(executor.isTerminated());
+        assertEquals(6, registry.score(3));
+        assertEquals(1, ingestion.getFailures());
+    }
+
+    /**
+     * Runs each task on its own thread, and lets a test wait for tasks to finish or fail rather than sleeping.
+     * Lanes and connections run until they are done, so a task finishing is the lane retiring or the
+     * connection ending.
+     */
+    private static final class WatchedExecutor extends ThreadPoolExecutor {
+
+        private final Semaphore finished = new Semaphore(0);
+        private final Semaphore failed = new Semaphore(0);
+
+        WatchedExecutor() {
+            super(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "lane-ingestion-test");
+                thread.setDaemon(true);
+                // failures are counted in afterExecute, nothing to print
+                thread.setUncaughtExceptionHandler((t, ex) -> {
+                });
+                return thread;
+            });
+        }
+
+        @Override
+        protected void afterExecute(Runnable task, Throwable thrown) {
+            if (thrown == null && task instanceof Future<?> && ((Future<?>) task).isDone()) {
+                try {
+                    ((Future<?>) task).get();
+                } catch (ExecutionException ex) {
+                    thrown = ex.getCause();
+                } catch (CancellationException | InterruptedException ignored) {
+                    // not a failure
+                }
+            }
+            if (thrown != null) failed.release();
+            finished.release();
+        }
+
+        void awaitFinished(int tasks) throws InterruptedException {
+            assertTrue(finished.tryAcquire(tasks, 5, TimeUnit.SECONDS), "Timed out");
+        }
+
+        void awaitFailed(int tasks) throws InterruptedException {
+            assertTrue(failed.tryAcquire(tasks, 5, TimeUnit.SECONDS), "Timed out");
+        }
+    }
+}
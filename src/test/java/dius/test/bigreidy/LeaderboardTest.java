@@ -0,0 +1,102 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeaderboardTest {
+
+    /**
+     * Test ranks, top and nearby players after a few updates
+     */
+    @Test
+    void testRankAndTop() {
+        Leaderboard leaderboard = new Leaderboard(10);
+        leaderboard.update(0, 120);
+        leaderboard.update(1, 200);
+        leaderboard.update(2, 90);
+        leaderboard.update(3, 120);
+        assertEquals(4, leaderboard.size());
+        assertEquals(1, leaderboard.rank(1));
+        assertEquals(2, leaderboard.rank(0));
+        assertEquals(2, leaderboard.rank(3));
+        assertEquals(4, leaderboard.rank(2));
+        assertEquals(-1, leaderboard.rank(9));
+
+        int[] top = new int[2];
+        assertEquals(2, leaderboard.top(2, top));
+        assertEquals(1, top[0]);
+        assertEquals(120, leaderboard.score(top[1]));
+
+        assertEquals(3, leaderboard.countWithin(100, 20));
+        int[] near = new int[10];
+        assertEquals(3, leaderboard.within(100, 20, near));
+        assertEquals(90, leaderboard.score(near[2]));
+
+        leaderboard.update(2, 250);
+        assertEquals(1, leaderboard.rank(2));
+        leaderboard.remove(1);
+        assertEquals(3, leaderboard.size());
+        assertEquals(2, leaderboard.rank(0));
+    }
+
+    /**
+     * Test random updates against counting every player
+     */
+    @Test
+    void testMatchesCounting() {
+        Random random = new Random(9);
+        int players = 300;
+        int[] scores = new int[players];
+        Arrays.fill(scores, -1);
+        Leaderboard leaderboard = new Leaderboard(players);
+        for (int i = 0; i < 20_000; i++) {
+            int player = random.nextInt(players);
+            if (random.nextInt(20) == 0) {
+                leaderboard.remove(player);
+                scores[player] = -1;
+            } else {
+                scores[player] = random.nextInt(BowlingGame.maxScore + 1);
+                leaderboard.update(player, scores[player]);
+            }
+            int checked = random.nextInt(players);
+            int expectedRank = -1;
+            if (scores[checked] >= 0) {
+                expectedRank = 1;
+                for (int score : scores) {
+                    if (score > scores[checked]) expectedRank++;
+                }
+            }
+            assertEquals(expectedRank, leaderboard.rank(checked));
+        }
+        int[] top = new int[players];
+        int found = leaderboard.top(players, top);
+        for (int i = 1; i < found; i++) {
+            assertTrue(scores[top[i - 1]] >= scores[top[i]]);
+        }
+    }
+
+    /**
+     * Test a registry keeps its games' scores on the leaderboard
+     */
+    @Test
+    void testRegistryUpdatesLeaderboard() {
+        Leaderboard leaderboard = new Leaderboard(8);
+        GameRegistry registry = new GameRegistry(null, leaderboard);
+        registry.start(4);
+        registry.start(5);
+        registry.roll(4, 7);
+        registry.roll(5, 10);
+        registry.roll(5, 3);
+        assertEquals(2, leaderboard.size());
+        assertEquals(16, leaderboard.score(5));
+        assertEquals(1, leaderboard.rank(5));
+        assertEquals(2, leaderboard.rank(4));
+        registry.remove(5);
+        assertEquals(1, leaderboard.rank(4));
+        assertEquals(1, leaderboard.size());
+    }
+}
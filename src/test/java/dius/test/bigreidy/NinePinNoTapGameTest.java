@@ -0,0 +1,57 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NinePinNoTapGameTest {
+
+    /**
+     * Test twelve nines is a perfect game
+     */
+    @Test
+    void testNinesAreStrikes() {
+        NinePinNoTapGame game = new NinePinNoTapGame();
+        for (int i = 0; i < 12; i++) {
+            game.roll(9);
+        }
+        assertTrue(game.isMatchEnded());
+        assertEquals(300, game.score());
+    }
+
+    /**
+     * Test a 9 is only a strike at a full rack
+     */
+    @Test
+    void testNineAfterFirstBall() {
+        NinePinNoTapGame game = new NinePinNoTapGame();
+        game.roll(0);
+        game.roll(9);
+        assertEquals(1, game.getFrameIndex());
+        assertEquals(9, game.score());
+        game.roll(1);
+        assertEquals(RollStatus.FRAME_OVERFLOW, game.tryRoll(10));
+        game.roll(9);
+        assertEquals(9 + 1 + 9, game.score());
+        // a full rack again, so this counts as a strike, and as 10 towards the spare
+        game.roll(9);
+        assertEquals(9 + 1 + 9 + 10 + 10, game.score());
+        assertEquals(3, game.getFrameIndex());
+    }
+
+    /**
+     * Test the fill balls of the last frame get the same no-tap rule
+     */
+    @Test
+    void testLastFrame() {
+        NinePinNoTapGame game = new NinePinNoTapGame();
+        for (int i = 0; i < 18; i++) {
+            game.roll(0);
+        }
+        game.roll(9);
+        game.roll(9);
+        game.roll(9);
+        assertTrue(game.isMatchEnded());
+        assertEquals(30, game.score());
+    }
+}
@@ -0,0 +1,95 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapGameStoreTest {
+
+    /**
+     * Test games in the store score the same as on-heap games, roll by roll, including refused rolls
+     */
+    @Test
+    void testMatchesBowlingGame() {
+        int games = 500;
+        OffHeapGameStore store = new OffHeapGameStore(games);
+        BowlingGame[] expected = new BowlingGame[games];
+        for (int g = 0; g < games; g++) {
+            expected[g] = new BowlingGame();
+        }
+        Random random = new Random(21);
+        OffHeapGameStore.GameView view = store.view();
+        for (int i = 0; i < games * 25; i++) {
+            int g = random.nextInt(games);
+            int pins = random.nextInt(13) - 1;
+            assertEquals(expected[g].tryRoll(pins), view.moveTo(g).tryRoll(pins));
+            assertEquals(expected[g].score(), view.score());
+            assertEquals(expected[g].isMatchEnded(), view.isMatchEnded());
+            assertEquals(expected[g].getFrameIndex(), view.getFrameIndex());
+        }
+        for (int g = 0; g < games; g++) {
+            assertEquals(expected[g].getRollCount(), store.getRollCount(g));
+            for (int r = 0; r < store.getRollCount(g); r++) {
+                assertEquals(expected[g].getRoll(r), store.getRoll(g, r));
+            }
+        }
+    }
+
+    @Test
+    void testPerfectGameAndReset() {
+        OffHeapGameStore store = new OffHeapGameStore(2);
+        for (int i = 0; i < 12; i++) {
+            store.roll(1, 10);
+        }
+        assertEquals(300, store.score(1));
+        assertTrue(store.isMatchEnded(1));
+        assertEquals(0, store.score(0));
+        final String errorText = "Match has ended";
+        try {
+            store.roll(1, 0);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalStateException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        store.reset(1);
+        assertEquals(0, store.score(1));
+        assertFalse(store.isMatchEnded(1));
+        assertEquals(0, store.getRollCount(1));
+    }
+
+    /**
+     * Sanity check - games and capacities outside the store
+     */
+    @Test
+    void testBounds() {
+        OffHeapGameStore store = new OffHeapGameStore(2);
+        assertThrows(IndexOutOfBoundsException.class, () -> store.roll(2, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.view().moveTo(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> store.getRoll(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapGameStore(0));
+        assertThrows(IllegalArgumentException.class, () -> new OffHeapGameStore(OffHeapGameStore.maxCapacity + 1));
+    }
+
+    /**
+     * Test a memory-mapped store carries on where it left off when opened again
+     */
+    @Test
+    void testMappedFile(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("games.bin");
+        OffHeapGameStore store = OffHeapGameStore.map(path, 1000);
+        store.roll(999, 10);
+        store.roll(999, 4);
+        store.force();
+
+        OffHeapGameStore reopened = OffHeapGameStore.map(path, 1000);
+        assertEquals(18, reopened.score(999));
+        reopened.roll(999, 6);
+        assertEquals(30, reopened.score(999));
+        assertEquals(0, reopened.score(0));
+    }
+}
@@ -0,0 +1,118 @@
+package dius.test.bigreidy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Roll sequences for the differential tests: random legal games, legal games with illegal rolls mixed in,
+ * and every possible last frame.
+ * Which rolls are legal comes from {@link BaselineFrame} and {@link #pinsStanding}, never from the {@link Frame}
+ * under test, so a bug there can't hide by shaping the games it is tested with.
+ */
+final class RollGenerator {
+
+    private RollGenerator() {
+    }
+
+    /**
+     * A complete legal game, biased towards strikes and spares so bonuses come up often
+     */
+    static int[] legalGame(Random random) {
+        int[] rolls = new int[BowlingGame.maxRolls];
+        int count = 0;
+        for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+            count = legalFrame(random, frame == BowlingGame.maxFrames - 1, rolls, count);
+        }
+        return Arrays.copyOf(rolls, count);
+    }
+
+    private static int legalFrame(Random random, boolean lastFrame, int[] rolls, int count) {
+        BaselineFrame frame = new BaselineFrame(lastFrame);
+        int start = count;
+        while (frame.canBowlAgain()) {
+            int standing = pinsStanding(rolls, start, count);
+            int pins = random.nextInt(3) == 0 ? standing : random.nextInt(standing + 1);
+            frame.bowl(pins);
+            rolls[count++] = pins;
+        }
+        return count;
+    }
+
+    /**
+     * Pins standing for the next ball of a frame: the rack is set up again whenever it is cleared,
+     * which only matters in the last frame, as any other frame ends there
+     *
+     * @param from  index of the frame's first roll
+     * @param until index of the next roll
+     */
+    static int pinsStanding(int[] rolls, int from, int until) {
+        int standing = 10;
+        for (int i = from; i < until; i++) {
+            standing -= rolls[i];
+            if (standing == 0) standing = 10;
+        }
+        return standing;
+    }
+
+    /**
+     * Mostly legal rolls, with some that are negative, more than 10, more than are standing,
+     * and more after the game would have ended
+     *
+     * @param length number of rolls, more than a game can take lets the end of the match be tested too
+     */
+    static int[] fuzzedRolls(Random random, int length) {
+        int[] rolls = new int[length];
+        for (int i = 0; i < length; i++) {
+            int kind = random.nextInt(20);
+            if (kind == 0) rolls[i] = -1 - random.nextInt(3);
+            else if (kind == 1) rolls[i] = 11 + random.nextInt(3);
+            else if (kind < 6) rolls[i] = 10;
+            else rolls[i] = random.nextInt(11);
+        }
+        return rolls;
+    }
+
+    /**
+     * Nine frames that leave different bonuses open going into the last frame
+     */
+    static List<int[]> firstNineFrames() {
+        List<int[]> prefixes = new ArrayList<>();
+        prefixes.add(new int[18]);
+        prefixes.add(new int[]{10, 10, 10, 10, 10, 10, 10, 10, 10});
+        prefixes.add(new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 3, 7, 6, 4});
+        prefixes.add(new int[]{0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10, 2, 8});
+        prefixes.add(new int[]{1, 2, 3, 4, 5, 4, 3, 2, 1, 0, 9, 0, 0, 9, 10, 10, 10});
+        return prefixes;
+    }
+
+    /**
+     * Every legal last frame, from two gutter balls up to three strikes
+     */
+    static List<int[]> everyLastFrame() {
+        List<int[]> lastFrames = new ArrayList<>();
+        addLastFrames(lastFrames, new int[0]);
+        return lastFrames;
+    }
+
+    private static void addLastFrames(List<int[]> lastFrames, int[] rolls) {
+        BaselineFrame frame = new BaselineFrame(true);
+        for (int pins : rolls) {
+            frame.bowl(pins);
+        }
+        if (!frame.canBowlAgain()) {
+            lastFrames.add(rolls);
+            return;
+        }
+        for (int pins = 0; pins <= pinsStanding(rolls, 0, rolls.length); pins++) {
+            addLastFrames(lastFrames, concat(rolls, new int[]{pins}));
+        }
+    }
+
+    static int[] concat(int[] first, int[] second) {
+        int[] rolls = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, rolls, first.length, second.length);
+        return rolls;
+    }
+}
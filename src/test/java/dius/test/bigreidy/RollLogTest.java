@@ -0,0 +1,354 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollLogTest {
+
+    @TempDir
+    Path tempDir;
+
+    /**
+     * Test records come back in the order they were appended
+     */
+    @Test
+    void testAppendAndReplay() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        try (RollLog log = new RollLog(path)) {
+            log.append(1, 0, RollLog.gameStarted);
+            log.append(1, 0, 10);
+            log.append(300, 1, 7);
+            log.commit();
+        }
+        assertEquals(3L * RollLog.recordBytes, Files.size(path));
+        List<String> records = new ArrayList<>();
+        long read = RollLog.replay(path, (gameId, frame, pins) -> records.add(gameId + ":" + frame + ":" + pins));
+        assertEquals(3, read);
+        assertEquals("[1:0:-1, 1:0:10, 300:1:7]", records.toString());
+    }
+
+    /**
+     * Test a record only partly written before a crash is ignored
+     */
+    @Test
+    void testPartialRecordIgnored() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        try (RollLog log = new RollLog(path)) {
+            log.append(2, 0, 4);
+        }
+        Files.write(path, new byte[]{0, 0, 0}, StandardOpenOption.APPEND);
+        assertEquals(1, RollLog.replay(path, (gameId, frame, pins) -> assertEquals(4, pins)));
+    }
+
+    /**
+     * Test more records than fit in the append buffer
+     */
+    @Test
+    void testManyRecords() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        int records = 10_000;
+        try (RollLog log = new RollLog(path)) {
+            for (int i = 0; i < records; i++) {
+                log.append(i, i % 10, i % 11);
+            }
+        }
+        long[] sum = new long[1];
+        assertEquals(records, RollLog.replay(path, (gameId, frame, pins) -> sum[0] += gameId));
+        assertEquals((long) records * (records - 1) / 2, sum[0]);
+    }
+
+    /**
+     * Test games played through a logging registry can be rebuilt after a restart,
+     * including a lane that started a second game
+     */
+    @Test
+    void testRebuildRegistry() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        try (RollLog log = new RollLog(path)) {
+            GameRegistry registry = new GameRegistry(log);
+            registry.start(1);
+            registry.start(2);
+            for (int r = 0; r < 12; r++) {
+                registry.roll(1, 10);
+            }
+            registry.roll(2, 9);
+            registry.start(2);
+            registry.roll(2, 4);
+            registry.roll(2, 6);
+            registry.roll(2, 5);
+            assertThrows(IllegalArgumentException.class, () -> registry.roll(2, 6));
+            log.commit();
+        }
+
+        GameRegistry rebuilt = new GameRegistry();
+        RollLog.rebuild(path, rebuilt);
+        assertEquals(2, rebuilt.size());
+        assertEquals(300, rebuilt.score(1));
+        assertTrue(rebuilt.isMatchEnded(1));
+        assertEquals(20, rebuilt.score(2));
+        assertFalse(rebuilt.isMatchEnded(2));
+    }
+
+    /**
+     * Test a log reopened after a crash left part of a record at the end cuts it off,
+     * so records appended after the restart still line up
+     */
+    @Test
+    void testReopenAfterPartialRecord() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        try (RollLog log = new RollLog(path)) {
+            log.append(1, 0, RollLog.gameStarted);
+            log.append(1, 0, 3);
+        }
+        Files.write(path, new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+        try (RollLog log = new RollLog(path)) {
+            assertEquals(2L * RollLog.recordBytes, Files.size(path));
+            log.append(1, 0, 5);
+        }
+        List<String> records = new ArrayList<>();
+        RollLog.replay(path, (gameId, frame, pins) -> records.add(gameId + ":" + frame + ":" + pins));
+        assertEquals("[1:0:-1, 1:0:3, 1:0:5]", records.toString());
+        GameRegistry rebuilt = new GameRegistry();
+        RollLog.rebuild(path, rebuilt);
+        assertEquals(8, rebuilt.score(1));
+    }
+
+    /**
+     * Test a game removed from a logging registry stays removed when it is rebuilt
+     */
+    @Test
+    void testRemoveIsLogged() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        try (RollLog log = new RollLog(path)) {
+            GameRegistry registry = new GameRegistry(log);
+            registry.start(5);
+            registry.roll(5, 7);
+            registry.start(6);
+            registry.roll(6, 2);
+            assertTrue(registry.remove(5));
+        }
+        GameRegistry rebuilt = new GameRegistry();
+        assertEquals(5, RollLog.rebuild(path, rebuilt));
+        assertFalse(rebuilt.contains(5));
+        assertEquals(2, rebuilt.score(6));
+    }
+
+    /**
+     * Test a record that cannot be applied is skipped and reported with its offset,
+     * and the records after it are still rebuilt
+     */
+    @Test
+    void testRebuildSkipsBadRecord() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        try (RollLog log = new RollLog(path)) {
+            log.append(1, 0, RollLog.gameStarted);
+            log.append(9, 0, 4);
+            log.append(1, 0, 6);
+            log.append(1, 0, 5);
+            log.append(1, 0, 2);
+        }
+        List<String> skipped = new ArrayList<>();
+        GameRegistry rebuilt = new GameRegistry();
+        long read = RollLog.rebuild(path, rebuilt, (ex, offset) -> skipped.add(offset + ": " + ex.getMessage()));
+        assertEquals(5, read);
+        assertEquals("[6: No game for id 9, 18: Cannot Bowl More Than 10 pins total for a frame]", skipped.toString());
+        assertEquals(8, rebuilt.score(1));
+    }
+
+    /**
+     * Test each lane removed on one thread while it is started again on another rebuilds to the same games,
+     * so a removal is never logged after the game that replaced it was started
+     */
+    @Test
+    void testRemoveRacingStart() throws Exception {
+        Path path = tempDir.resolve("rolls.log");
+        int lanes = 200_000;
+        GameRegistry registry;
+        try (RollLog log = new RollLog(path)) {
+            registry = new GameRegistry(log);
+            for (int lane = 0; lane < lanes; lane++) {
+                registry.start(lane);
+            }
+            GameRegistry logged = registry;
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            Future<?> remover = executor.submit(() -> {
+                for (int lane = 0; lane < lanes; lane++) {
+                    logged.remove(lane);
+                }
+                return null;
+            });
+            Future<?> starter = executor.submit(() -> {
+                for (int lane = 0; lane < lanes; lane++) {
+                    logged.start(lane);
+                }
+                return null;
+            });
+            remover.get();
+            starter.get();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+        GameRegistry rebuilt = new GameRegistry();
+        RollLog.rebuild(path, rebuilt);
+        for (int lane = 0; lane < lanes; lane++) {
+            assertEquals(registry.contains(lane), rebuilt.contains(lane));
+        }
+    }
+
+    /**
+     * Test a commit that fails part way through writing keeps what it could not write, so appends after it
+     * don't overwrite earlier records, and the next commit carries on where it stopped
+     */
+    @Test
+    void testCommitAfterFailedWrite() throws IOException {
+        Path path = tempDir.resolve("rolls.log");
+        FailingChannel channel = new FailingChannel(
+                FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+        try (RollLog log = new RollLog(channel)) {
+            log.append(1, 0, RollLog.gameStarted);
+            log.append(1, 0, 3);
+            channel.budget = RollLog.recordBytes + 2;
+            final String errorText = "Disk full";
+            try {
+                log.commit();
+                fail(String.format("Expected \"%s\"", errorText));
+            } catch (IOException ex) {
+                assertEquals(errorText, ex.getMessage());
+            }
+            log.append(1, 0, 5);
+            channel.budget = Long.MAX_VALUE;
+            log.commit();
+        }
+        List<String> records = new ArrayList<>();
+        RollLog.replay(path, (gameId, frame, pins) -> records.add(gameId + ":" + frame + ":" + pins));
+        assertEquals("[1:0:-1, 1:0:3, 1:0:5]", records.toString());
+    }
+
+    /**
+     * A file channel that writes up to a budget of bytes, then fails, like a disk filling up
+     */
+    private static final class FailingChannel extends FileChannel {
+
+        private final FileChannel file;
+        private long budget = Long.MAX_VALUE;
+
+        FailingChannel(FileChannel file) {
+            this.file = file;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            if (budget == 0) throw new IOException("Disk full");
+            int limit = src.limit();
+            src.limit(src.position() + (int) Math.min(src.remaining(), budget));
+            try {
+                int written = file.write(src);
+                budget -= written;
+                return written;
+            } finally {
+                src.limit(limit);
+            }
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int write(ByteBuffer src, long position) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            return file.read(dst);
+        }
+
+        @Override
+        public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+            return file.read(dsts, offset, length);
+        }
+
+        @Override
+        public int read(ByteBuffer dst, long position) throws IOException {
+            return file.read(dst, position);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return file.position();
+        }
+
+        @Override
+        public FileChannel position(long newPosition) throws IOException {
+            file.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return file.size();
+        }
+
+        @Override
+        public FileChannel truncate(long size) throws IOException {
+            file.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(boolean metaData) throws IOException {
+            file.force(metaData);
+        }
+
+        @Override
+        public long transferTo(long position, long count, WritableByteChannel target) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public long transferFrom(ReadableByteChannel src, long position, long count) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+            return file.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(long position, long size, boolean shared) throws IOException {
+            return file.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+            return file.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RollStatisticsTest {
+
+    private static void recordAll(RollStatistics statistics, int bowler, int lane, int... rolls) {
+        for (int pins : rolls) {
+            statistics.record(bowler, lane, pins);
+        }
+    }
+
+    /**
+     * Test a game with strikes, spares, opens and a strike in the last frame
+     */
+    @Test
+    void testSingleGame() {
+        RollStatistics statistics = new RollStatistics(1, 1);
+        recordAll(statistics, 0, 0, 10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1);
+        RollStatistics.Counters bowler = statistics.bowlers();
+        assertEquals(10, bowler.frameCount(0));
+        // open frames: 9,0 / 0,8 / 0,6
+        assertEquals(0.3, bowler.openFrameRate(0), 1e-9);
+        // full racks: 10 first balls, plus the fresh rack after the 10th frame strike; 5 strikes on them
+        assertEquals(5.0 / 11, bowler.strikeRate(0), 1e-9);
+        // partial racks: after 7, 9, 0, 8, 0 (a gutter ball is still a partial rack) and the 8 in the 10th; picked up after 7 and 8
+        assertEquals(2.0 / 6, bowler.spareConversionRate(0), 1e-9);
+        assertEquals(5, bowler.firstBallCount(0, 10));
+        assertEquals(2, bowler.firstBallCount(0, 0));
+        assertEquals(1, bowler.tenthFrameStrikes(0));
+        assertEquals(0, bowler.tenthFrameTurkeys(0));
+        assertEquals(0, bowler.tenthFrameOpens(0));
+    }
+
+    /**
+     * Test counts are split by bowler but shared by lane, and carry on into the next game
+     */
+    @Test
+    void testBowlersAndLanes() {
+        RollStatistics statistics = new RollStatistics(2, 1);
+        for (int game = 0; game < 2; game++) {
+            recordAll(statistics, 0, 0, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10);
+        }
+        for (int frame = 0; frame < BowlingGame.maxFrames; frame++) {
+            recordAll(statistics, 1, 0, 4, 5);
+        }
+        assertEquals(1.0, statistics.bowlers().strikeRate(0));
+        assertEquals(2, statistics.bowlers().tenthFrameTurkeys(0));
+        assertEquals(20, statistics.bowlers().frameCount(0));
+        assertEquals(0.0, statistics.bowlers().strikeRate(1));
+        assertEquals(1.0, statistics.bowlers().openFrameRate(1));
+        assertEquals(1, statistics.bowlers().tenthFrameOpens(1));
+        assertEquals(30, statistics.lanes().frameCount(0));
+        assertEquals(24.0 / 34, statistics.lanes().strikeRate(0), 1e-9);
+    }
+
+    /**
+     * Sanity check - nothing recorded gives zero rates rather than dividing by zero
+     */
+    @Test
+    void testNothingRecorded() {
+        RollStatistics statistics = new RollStatistics(1, 1);
+        assertEquals(0.0, statistics.bowlers().strikeRate(0));
+        assertEquals(0.0, statistics.lanes().openFrameRate(0));
+    }
+
+    /**
+     * Test an abandoned game can be reset, so the next game's frames line up again
+     */
+    @Test
+    void testResetGame() {
+        RollStatistics statistics = new RollStatistics(1, 1);
+        recordAll(statistics, 0, 0, 3, 4, 5);
+        statistics.resetGame(0);
+        recordAll(statistics, 0, 0, 10);
+        RollStatistics.Counters bowler = statistics.bowlers();
+        assertEquals(2, bowler.frameCount(0));
+        assertEquals(1, bowler.firstBallCount(0, 10));
+        assertEquals(1, bowler.firstBallCount(0, 5));
+        assertEquals(1.0 / 3, bowler.strikeRate(0), 1e-9);
+    }
+
+    /**
+     * Sanity check - more pins than a rack holds is refused, and counts nothing
+     */
+    @Test
+    void testTooManyPins() {
+        final String errorText = "Pins must be between 0 and 10";
+        RollStatistics statistics = new RollStatistics(2, 1);
+        try {
+            statistics.record(0, 0, 11);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class, () -> statistics.record(0, 0, -1));
+        assertEquals(0, statistics.bowlers().firstBallCount(1, 0));
+        assertEquals(0.0, statistics.bowlers().strikeRate(0));
+    }
+}
@@ -0,0 +1,81 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetGameTest {
+
+    private static RuleSetGame play(RuleSet rules, int... rolls) {
+        RuleSetGame game = new RuleSetGame(rules);
+        for (int pins : rolls) {
+            game.roll(pins);
+        }
+        return game;
+    }
+
+    /**
+     * Test a strike, a spare, a ten-box and an open frame
+     */
+    @Test
+    void testCandlepinFrames() {
+        RuleSetGame game = play(RuleSet.CANDLEPIN, 10, 6, 4, 3, 3, 4, 2, 2, 2);
+        // strike 10 + 6 + 4, spare 10 + 3, ten-box 10, open 6
+        assertEquals(20 + 13 + 10 + 6, game.score());
+        assertEquals(4, game.getFrameIndex());
+    }
+
+    /**
+     * Test the last frame always takes three balls, with the rack set up again after a strike or spare
+     */
+    @Test
+    void testLastFrame() {
+        int[] nineOpenFrames = new int[27];
+        RuleSetGame open = play(RuleSet.CANDLEPIN, nineOpenFrames);
+        open.roll(1);
+        open.roll(2);
+        assertFalse(open.isMatchEnded());
+        open.roll(3);
+        assertTrue(open.isMatchEnded());
+        assertEquals(6, open.score());
+
+        RuleSetGame strike = play(RuleSet.CANDLEPIN, nineOpenFrames);
+        strike.roll(10);
+        strike.roll(4);
+        assertEquals(RollStatus.FRAME_OVERFLOW, strike.tryRoll(7));
+        strike.roll(6);
+        assertTrue(strike.isMatchEnded());
+        assertEquals(20, strike.score());
+
+        RuleSetGame spare = play(RuleSet.CANDLEPIN, nineOpenFrames);
+        spare.roll(3);
+        spare.roll(7);
+        spare.roll(10);
+        assertEquals(20, spare.score());
+    }
+
+    /**
+     * Test 5-pin scores by points, and refuses points no set of pins is worth
+     */
+    @Test
+    void testFivePin() {
+        RuleSetGame game = new RuleSetGame(RuleSet.FIVE_PIN);
+        final String errorText = "No set of pins is worth that many points";
+        try {
+            game.roll(1);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        assertEquals(RollStatus.IMPOSSIBLE_PINS, game.tryRoll(14));
+        game.roll(10);
+        assertEquals(RollStatus.IMPOSSIBLE_PINS, game.tryRoll(4));
+        game.roll(5);
+        game.roll(15);
+        // spare 15 + 15, then a strike still waiting on its bonus
+        assertEquals(30 + 15, game.score());
+        game.roll(2);
+        game.roll(3);
+        assertEquals(30 + 15 + 5 + 5, game.score());
+    }
+}
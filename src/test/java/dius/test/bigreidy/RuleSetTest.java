@@ -0,0 +1,111 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RuleSetTest {
+
+    private static Game play(RuleSet rules, int... rolls) {
+        Game game = rules.newGame();
+        for (int pins : rolls) {
+            game.roll(pins);
+        }
+        return game;
+    }
+
+    /**
+     * Test ten-pin is still the plain BowlingGame
+     */
+    @Test
+    void testTenPin() {
+        assertSame(BowlingGame.class, RuleSet.TEN_PIN.newGame().getClass());
+        Game game = play(RuleSet.TEN_PIN, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10);
+        assertEquals(RuleSet.TEN_PIN.getMaxScore(), game.score());
+        assertTrue(game.isMatchEnded());
+    }
+
+    /**
+     * Test a perfect game under every set of rules
+     */
+    @Test
+    void testPerfectGames() {
+        for (RuleSet rules : RuleSet.values()) {
+            Game game = rules.newGame();
+            for (int i = 0; i < rules.getFrames() + rules.getStrikeBonus(); i++) {
+                game.roll(rules.getRackPoints());
+            }
+            assertTrue(game.isMatchEnded(), rules.name());
+            assertEquals(rules.getMaxScore(), game.score(), rules.name());
+            assertEquals(rules.getFrames(), game.getFrameIndex(), rules.name());
+            assertEquals(RollStatus.MATCH_ENDED, game.tryRoll(0), rules.name());
+        }
+        assertEquals(450, RuleSet.FIVE_PIN.getMaxScore());
+        assertEquals(3, RuleSet.CANDLEPIN.getBallsPerFrame());
+        assertEquals(2, RuleSet.NINE_PIN_NO_TAP.getBallsPerFrame());
+    }
+
+    /**
+     * Test every rule set refuses the same kinds of bad roll, without throwing from tryRoll
+     */
+    @Test
+    void testRefusedRolls() {
+        for (RuleSet rules : RuleSet.values()) {
+            Game game = rules.newGame();
+            assertEquals(RollStatus.NEGATIVE_PINS, game.tryRoll(-1), rules.name());
+            assertEquals(RollStatus.TOO_MANY_PINS, game.tryRoll(rules.getRackPoints() + 1), rules.name());
+            assertEquals(RollStatus.ACCEPTED, game.tryRoll(3), rules.name());
+            assertEquals(RollStatus.FRAME_OVERFLOW, game.tryRoll(rules.getRackPoints() - 2), rules.name());
+            assertEquals(3, game.score(), rules.name());
+        }
+    }
+
+    /**
+     * Test the rolls too big for a rack are refused with the rack the rules play with
+     */
+    @Test
+    void testRackInMessages() {
+        String errorText = "Cannot Bowl More Than 15 pins in a single bowl";
+        try {
+            RuleSet.FIVE_PIN.newGame().roll(16);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        Game game = play(RuleSet.FIVE_PIN, 10);
+        errorText = "Cannot Bowl More Than 15 pins total for a frame";
+        try {
+            game.roll(7);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+        errorText = "Cannot Bowl More Than 10 pins in a single bowl";
+        try {
+            RuleSet.CANDLEPIN.newGame().roll(11);
+            fail(String.format("Expected \"%s\"", errorText));
+        } catch (IllegalArgumentException ex) {
+            assertEquals(errorText, ex.getMessage());
+        }
+    }
+
+    /**
+     * Test the frames, balls and bonuses of each rule set are what its game plays
+     */
+    @Test
+    void testRulesDriveTheGame() {
+        assertSame(RuleSetGame.class, RuleSet.DUCKPIN.newGame().getClass());
+        assertEquals(2, RuleSet.CANDLEPIN.bonusBalls(1));
+        assertEquals(1, RuleSet.CANDLEPIN.bonusBalls(2));
+        assertEquals(0, RuleSet.CANDLEPIN.bonusBalls(3));
+        assertEquals(1, RuleSet.TEN_PIN.bonusBalls(2));
+        // ten-pin's fields played as a rule set game: a spare then an open frame, and a 2 ball last frame
+        Game game = new RuleSetGame(RuleSet.TEN_PIN);
+        int[] rolls = {6, 4, 3, 2, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        for (int pins : rolls) {
+            game.roll(pins);
+        }
+        assertEquals(13 + 5, game.score());
+        assertTrue(game.isMatchEnded());
+    }
+}
@@ -0,0 +1,105 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoreDistributionTest {
+
+    /**
+     * Test the number of games ending on each score, and in total
+     */
+    @Test
+    void testGameCounts() {
+        long[] counts = ScoreDistribution.gameCounts(false);
+        assertEquals(301, counts.length);
+        assertEquals(1, counts[300]);
+        // 11 strikes and then a 9 or an 8
+        assertEquals(1, counts[299]);
+        assertEquals(1, counts[298]);
+        assertEquals(1, counts[0]);
+        // a single pin on any one of the 20 bowls of an open game
+        assertEquals(20, counts[1]);
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        // 66 ways to bowl each of the first nine frames, and 241 ways to bowl the last
+        assertEquals(5_726_805_883_325_784_576L, total);
+        assertArrayEquals(counts, ScoreDistribution.gameCounts(true));
+    }
+
+    @Test
+    void testUniformProbabilities() {
+        double[] probabilities = ScoreDistribution.probabilities(ScoreDistribution.uniform(), false);
+        double total = 0;
+        for (double probability : probabilities) {
+            total += probability;
+        }
+        assertEquals(1, total, 1e-9);
+        assertEquals(Math.pow(1.0 / 11, 12), probabilities[300], 1e-20);
+        assertEquals(Math.pow(1.0 / 11, 20), probabilities[0], 1e-30);
+        assertArrayEquals(probabilities, ScoreDistribution.probabilities(ScoreDistribution.uniform(), true), 1e-15);
+    }
+
+    /**
+     * Test against playing lots of random games with the same chances through BowlingGame
+     */
+    @Test
+    void testMatchesSimulation() {
+        // a decent bowler: strikes half the time, and picks up most spares
+        ScoreDistribution.RollModel model = (standing, pins) -> {
+            if (pins == standing) return standing == 10 ? 5 : 8;
+            return 1;
+        };
+        double[] probabilities = ScoreDistribution.probabilities(model, true);
+        double expectedMean = 0;
+        for (int score = 0; score < probabilities.length; score++) {
+            expectedMean += score * probabilities[score];
+        }
+
+        Random random = new Random(24);
+        int games = 20_000;
+        double mean = 0;
+        for (int g = 0; g < games; g++) {
+            BowlingGame bowlingGame = new BowlingGame();
+            while (!bowlingGame.isMatchEnded()) {
+                int standing = pinsStanding(bowlingGame);
+                double total = 0;
+                for (int pins = 0; pins <= standing; pins++) {
+                    total += model.probability(standing, pins);
+                }
+                double pick = random.nextDouble() * total;
+                int pins = 0;
+                while (pins < standing && (pick -= model.probability(standing, pins)) >= 0) {
+                    pins++;
+                }
+                bowlingGame.roll(pins);
+            }
+            mean += bowlingGame.score();
+        }
+        mean /= games;
+        assertEquals(expectedMean, mean, 1.5);
+    }
+
+    /**
+     * The most pins the game will take on the next bowl
+     */
+    private static int pinsStanding(BowlingGame bowlingGame) {
+        for (int pins = 10; pins > 0; pins--) {
+            if (bowlingGame.tryRoll(pins).isAccepted()) {
+                bowlingGame.undo();
+                return pins;
+            }
+        }
+        return 0;
+    }
+
+    @Test
+    void testBadModel() {
+        assertThrows(IllegalArgumentException.class, () -> ScoreDistribution.probabilities((standing, pins) -> -1, false));
+        assertThrows(IllegalArgumentException.class, () -> ScoreDistribution.probabilities((standing, pins) -> 0, false));
+    }
+}
@@ -0,0 +1,100 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScorecardRendererTest {
+
+    private static final String example =
+            "|  X|7 /|9 -|  X|- 8|8 /|- 6|  X|  X|X 8 1|\n" +
+            "| 20| 39| 48| 66| 74| 84| 90|120|148|  167|\n";
+
+    private static BowlingGame play(int... rolls) {
+        BowlingGame bowlingGame = new BowlingGame();
+        for (int pins : rolls) {
+            bowlingGame.roll(pins);
+        }
+        return bowlingGame;
+    }
+
+    @Test
+    void testFullGame() {
+        BowlingGame bowlingGame = play(10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1);
+        StringBuilder out = new StringBuilder();
+        assertEquals(10, new ScorecardRenderer().render(bowlingGame, out, 0));
+        assertEquals(example, out.toString());
+        assertEquals(ScorecardRenderer.length, out.length());
+    }
+
+    /**
+     * Test running totals are left blank until the frame's bonus rolls are in
+     */
+    @Test
+    void testBonusesPending() {
+        StringBuilder out = new StringBuilder();
+        new ScorecardRenderer().render(play(10, 10, 3), out, 0);
+        assertEquals("|  X|  X|3  |   |   |   |   |   |   |     |\n" +
+                "| 23|   |   |   |   |   |   |   |   |     |\n", out.toString());
+    }
+
+    @Test
+    void testPerfectLastFrame() {
+        StringBuilder out = new StringBuilder();
+        new ScorecardRenderer().render(play(10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10, 10), out, 0);
+        assertTrue(out.toString().contains("|X X X|\n"));
+        assertTrue(out.toString().endsWith("|270|  300|\n"));
+    }
+
+    @Test
+    void testLastFrameSpareAfterStrike() {
+        StringBuilder out = new StringBuilder();
+        new ScorecardRenderer().render(play(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 10, 0, 10), out, 0);
+        assertTrue(out.toString().contains("|X - /|\n"));
+    }
+
+    /**
+     * Test re-rendering only writes the frames a roll changed, and ends up the same as rendering from scratch
+     */
+    @Test
+    void testIncremental() {
+        int[] rolls = {10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1};
+        ScorecardRenderer renderer = new ScorecardRenderer();
+        StringBuilder out = new StringBuilder("Lane 4: ");
+        BowlingGame bowlingGame = new BowlingGame();
+        assertEquals(10, renderer.render(bowlingGame, out, 8));
+        bowlingGame.roll(10);
+        assertEquals(1, renderer.render(bowlingGame, out, 8));
+        bowlingGame.roll(7);
+        assertEquals(1, renderer.render(bowlingGame, out, 8));
+        bowlingGame.roll(3);
+        // the spare, and the strike's total before it
+        assertEquals(2, renderer.render(bowlingGame, out, 8));
+        assertEquals(0, renderer.render(bowlingGame, out, 8));
+        for (int i = 3; i < rolls.length; i++) {
+            bowlingGame.roll(rolls[i]);
+            renderer.render(bowlingGame, out, 8);
+        }
+        assertEquals("Lane 4: " + example, out.toString());
+    }
+
+    @Test
+    void testBuffers() {
+        BowlingGame bowlingGame = play(10, 7, 3, 9, 0, 10, 0, 8, 8, 2, 0, 6, 10, 10, 10, 8, 1);
+        CharBuffer chars = CharBuffer.allocate(ScorecardRenderer.length + 2);
+        chars.position(2);
+        new ScorecardRenderer().render(bowlingGame, chars);
+        assertEquals(2, chars.position());
+        assertEquals(example, chars.toString());
+
+        ByteBuffer bytes = ByteBuffer.allocateDirect(ScorecardRenderer.length);
+        new ScorecardRenderer().render(bowlingGame, bytes);
+        byte[] written = new byte[ScorecardRenderer.length];
+        bytes.get(written);
+        assertEquals(example, new String(written, StandardCharsets.US_ASCII));
+    }
+}
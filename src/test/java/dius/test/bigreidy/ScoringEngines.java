@@ -0,0 +1,184 @@
+package dius.test.bigreidy;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Differential harness: plays the same rolls through {@link BaselineGame} and every other scoring engine,
+ * and checks that after each roll they agree on whether it was allowed (exception type and message),
+ * the score and whether the match has ended.
+ * A new engine only needs adding to {@link #engines} to be covered by every differential test.
+ */
+final class ScoringEngines {
+
+    /**
+     * every engine that plays a game roll by roll, by name
+     */
+    static final Map<String, Supplier<Game>> engines = new LinkedHashMap<>();
+
+    static {
+        engines.put("BowlingGame", BowlingGame::new);
+        engines.put("BowlingGame undo and roll again", UndoingGame::new);
+        engines.put("StateMachineGame", StateMachineGame::new);
+        engines.put("StateMachineGame tryRoll", TryingGame::new);
+        engines.put("RuleSetGame on ten-pin rules", () -> new RuleSetGame(RuleSet.TEN_PIN));
+        engines.put("BowlingMatch", MatchGame::new);
+        engines.put("GameRegistry", RegistryGame::new);
+        // one store for every test, direct memory is slow to allocate and free
+        OffHeapGameStore store = new OffHeapGameStore(1);
+        engines.put("OffHeapGameStore", () -> {
+            store.reset(0);
+            return store.view();
+        });
+    }
+
+    /**
+     * Undoes every roll and rolls it again, so the undo is checked to leave the game exactly as it was
+     */
+    private static final class UndoingGame extends BowlingGame {
+        @Override
+        public void roll(int noOfPins) {
+            super.roll(noOfPins);
+            undo();
+            super.roll(noOfPins);
+        }
+    }
+
+    /**
+     * Rolls through tryRoll, so its statuses are checked to give the same exceptions as roll
+     */
+    private static final class TryingGame extends StateMachineGame {
+        @Override
+        public void roll(int noOfPins) {
+            tryRoll(noOfPins).throwIfRejected();
+        }
+    }
+
+    /**
+     * A match of one bowler bowling one game.
+     * A match has no tryRoll or frame index, and the harness only needs rolls, the score and the end.
+     */
+    private static final class MatchGame implements Game {
+        private final BowlingMatch match = new BowlingMatch(1, 1);
+
+        @Override
+        public void roll(int noOfPins) {
+            match.roll(noOfPins);
+        }
+
+        @Override
+        public RollStatus tryRoll(int noOfPins) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int score() {
+            return match.score(0);
+        }
+
+        @Override
+        public boolean isMatchEnded() {
+            return match.isMatchEnded();
+        }
+
+        @Override
+        public int getFrameIndex() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A registry holding one game
+     */
+    private static final class RegistryGame implements Game {
+        private final GameRegistry registry = new GameRegistry();
+
+        RegistryGame() {
+            registry.start(0);
+        }
+
+        @Override
+        public void roll(int noOfPins) {
+            registry.roll(0, noOfPins);
+        }
+
+        @Override
+        public RollStatus tryRoll(int noOfPins) {
+            return registry.tryRoll(0, noOfPins);
+        }
+
+        @Override
+        public int score() {
+            return registry.score(0);
+        }
+
+        @Override
+        public boolean isMatchEnded() {
+            return registry.isMatchEnded(0);
+        }
+
+        @Override
+        public int getFrameIndex() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private ScoringEngines() {
+    }
+
+    /**
+     * Plays the rolls through the reference and every engine, checking they agree after every roll.
+     * Refused rolls carry on to the next one, as a lane would.
+     * The rolls that were allowed are then scored by the batch scorers too.
+     *
+     * @param rolls any pins at all, legal or not
+     */
+    static void assertSameAsReference(int... rolls) {
+        BaselineGame reference = new BaselineGame();
+        Map<String, Game> games = new LinkedHashMap<>();
+        engines.forEach((name, engine) -> games.put(name, engine.get()));
+        int[] accepted = new int[rolls.length];
+        int acceptedCount = 0;
+        for (int r = 0; r < rolls.length; r++) {
+            int pins = rolls[r];
+            String expected = outcome(() -> reference.roll(pins));
+            if (expected.isEmpty()) accepted[acceptedCount++] = pins;
+            int rollCount = r + 1;
+            for (Map.Entry<String, Game> entry : games.entrySet()) {
+                Game game = entry.getValue();
+                Supplier<String> where = () -> entry.getKey() + " after " + Arrays.toString(Arrays.copyOf(rolls, rollCount));
+                assertEquals(expected, outcome(() -> game.roll(pins)), where);
+                assertEquals(reference.score(), game.score(), where);
+                assertEquals(reference.isMatchEnded(), game.isMatchEnded(), where);
+            }
+        }
+        assertBatchScorersAgree(reference, Arrays.copyOf(accepted, acceptedCount));
+    }
+
+    private static void assertBatchScorersAgree(BaselineGame reference, int[] rolls) {
+        Supplier<String> where = () -> "batch scoring " + Arrays.toString(rolls);
+        int[] scores = new int[1];
+        BowlingScorer.scoreAll(rolls, new int[]{0}, scores);
+        assertEquals(reference.score(), scores[0], where);
+        if (reference.isMatchEnded()) {
+            FrameAlignedScorer.scoreCompleted(rolls, new int[]{0}, scores);
+            assertEquals(reference.score(), scores[0], where);
+        }
+    }
+
+    /**
+     * @return the exception's type and message, or empty if the roll was allowed
+     */
+    private static String outcome(Runnable roll) {
+        try {
+            roll.run();
+            return "";
+        } catch (IllegalStateException | IllegalArgumentException ex) {
+            return ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScoringEnginesTest {
+
+    /**
+     * Sanity check - the reference itself, on the games everyone knows the score of
+     */
+    @Test
+    void testReference() {
+        BaselineGame perfect = new BaselineGame();
+        for (int i = 0; i < 12; i++) {
+            perfect.roll(10);
+        }
+        assertEquals(300, perfect.score());
+        assertTrue(perfect.isMatchEnded());
+        BaselineGame spares = new BaselineGame();
+        for (int i = 0; i < 21; i++) {
+            spares.roll(5);
+        }
+        assertEquals(150, spares.score());
+    }
+
+    @Test
+    void testRandomLegalGames() {
+        Random random = new Random(23);
+        for (int g = 0; g < 2_000; g++) {
+            ScoringEngines.assertSameAsReference(RollGenerator.legalGame(random));
+        }
+    }
+
+    /**
+     * Test random rolls, many of them illegal, and more of them than a game can take
+     */
+    @Test
+    void testFuzzedRolls() {
+        Random random = new Random(230);
+        for (int g = 0; g < 1_000; g++) {
+            ScoringEngines.assertSameAsReference(RollGenerator.fuzzedRolls(random, 25));
+        }
+    }
+
+    /**
+     * Test every legal last frame, after nine frames leaving different bonuses open.
+     * At every point in the last frame, each kind of illegal next bowl is tried too: negative, more than 10,
+     * one more than is standing, and any bowl at all once the match is over. So the second and third ball
+     * checks after a strike or spare are all covered.
+     */
+    @Test
+    void testEveryLastFrame() {
+        List<int[]> lastFrames = RollGenerator.everyLastFrame();
+        // 55 open frames, 10 spares with 11 fill balls each, 76 starting with a strike
+        assertEquals(241, lastFrames.size());
+        for (int[] lastFrame : lastFrames) {
+            Frame frame = new Frame(true);
+            for (int pins : lastFrame) {
+                frame.bowl(pins);
+            }
+            assertFalse(frame.canBowlAgain());
+            assertEquals(lastFrame.length > 1 && lastFrame[1] == 10, frame.isLastFrameSecondStrike());
+            assertEquals(lastFrame.length > 2 && lastFrame[2] == 10, frame.isLastFrameThirdStrike());
+        }
+        for (int[] prefix : RollGenerator.firstNineFrames()) {
+            for (int[] lastFrame : lastFrames) {
+                int[] game = RollGenerator.concat(prefix, lastFrame);
+                ScoringEngines.assertSameAsReference(RollGenerator.concat(game, new int[]{0}));
+                for (int bowls = 0; bowls < lastFrame.length; bowls++) {
+                    int standing = RollGenerator.pinsStanding(lastFrame, 0, bowls);
+                    int[] rolls = Arrays.copyOf(game, prefix.length + bowls + 3);
+                    rolls[rolls.length - 3] = -1;
+                    rolls[rolls.length - 2] = 11;
+                    rolls[rolls.length - 1] = standing + 1;
+                    ScoringEngines.assertSameAsReference(rolls);
+                }
+            }
+        }
+    }
+}
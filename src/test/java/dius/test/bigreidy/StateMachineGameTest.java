@@ -0,0 +1,93 @@
+package dius.test.bigreidy;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StateMachineGameTest {
+
+    /**
+     * Test scoring the best game
+     */
+    @Test
+    void testGameMaxScore() {
+        StateMachineGame game = new StateMachineGame();
+        for (int r = 0; r < 12; r++) {
+            game.roll(10);
+        }
+        assertTrue(game.isMatchEnded());
+        assertEquals(300, game.score());
+        assertThrows(IllegalStateException.class, () -> game.roll(0));
+    }
+
+    /**
+     * Test the table is small enough to stay in cache
+     */
+    @Test
+    void testStateCount() {
+        assertTrue(StateMachineGame.getStateCount() < 1024, "states: " + StateMachineGame.getStateCount());
+    }
+
+    /**
+     * Test random games, including random illegal rolls, against BowlingGame.
+     * Every roll must be accepted or refused the same way, and the scores must match after every roll.
+     */
+    @Test
+    void testMatchesBowlingGame() {
+        Random random = new Random(3);
+        for (int g = 0; g < 20_000; g++) {
+            BowlingGame reference = new BowlingGame();
+            StateMachineGame game = new StateMachineGame();
+            for (int r = 0; r < 25; r++) {
+                int pins = random.nextInt(10) == 0 ? random.nextInt(15) - 2 : random.nextInt(11);
+                assertSameOutcome(reference, game, pins);
+                assertEquals(reference.score(), game.score());
+                assertEquals(reference.isMatchEnded(), game.isMatchEnded());
+            }
+        }
+    }
+
+    /**
+     * Test every legal last frame, after a strike and a spare, against BowlingGame
+     */
+    @Test
+    void testEveryLastFrame() {
+        for (int first = 0; first <= 10; first++) {
+            for (int second = 0; second <= 10; second++) {
+                for (int third = 0; third <= 10; third++) {
+                    BowlingGame reference = new BowlingGame();
+                    StateMachineGame game = new StateMachineGame();
+                    int[] opening = {3, 4, 10, 5, 5, 0, 0, 9, 1, 2, 3, 4, 5, 6, 4, 10, 10};
+                    for (int pins : opening) {
+                        reference.roll(pins);
+                        game.roll(pins);
+                    }
+                    for (int pins : new int[]{first, second, third}) {
+                        assertSameOutcome(reference, game, pins);
+                    }
+                    assertEquals(reference.score(), game.score());
+                    assertEquals(reference.isMatchEnded(), game.isMatchEnded());
+                }
+            }
+        }
+    }
+
+    private static void assertSameOutcome(BowlingGame reference, StateMachineGame game, int pins) {
+        RuntimeException expected = null;
+        try {
+            reference.roll(pins);
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            expected = ex;
+        }
+        try {
+            game.roll(pins);
+            assertNull(expected, () -> "expected " + pins + " to be refused");
+        } catch (IllegalArgumentException | IllegalStateException ex) {
+            assertNotNull(expected, () -> "expected " + pins + " to be accepted");
+            assertEquals(expected.getClass(), ex.getClass());
+            assertEquals(expected.getMessage(), ex.getMessage());
+        }
+    }
+}